@@ -3,6 +3,8 @@ package com.valesmp.slabby;
 import com.valesmp.slabby.config.SlabbyMessages;
 import com.valesmp.slabby.config.SlabbyConfig;
 import com.valesmp.slabby.service.ExceptionService;
+import com.valesmp.slabby.service.PlayerNameService;
+import com.valesmp.slabby.shop.AsyncShopRepository;
 import com.valesmp.slabby.shop.ShopOperations;
 import com.valesmp.slabby.shop.ShopRepository;
 import com.valesmp.slabby.wrapper.claim.ClaimWrapper;
@@ -31,6 +33,8 @@ public interface SlabbyAPI {
 
     ShopRepository repository();
 
+    AsyncShopRepository asyncRepository();
+
     ShopOperations operations();
 
     SlabbyConfig configuration();
@@ -43,6 +47,8 @@ public interface SlabbyAPI {
 
     ExceptionService exceptionService();
 
+    PlayerNameService names();
+
     <T> T fromJson(final String json, final Class<? extends T> theClass);
 
     String toJson(final Object data);
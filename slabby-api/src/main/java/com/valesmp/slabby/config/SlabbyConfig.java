@@ -14,10 +14,62 @@ public interface SlabbyConfig {
 
     Lands lands();
 
+    Settlement settlement();
+
     interface Database {
 
         String url();
 
+        String journalMode();
+
+        String synchronous();
+
+        long mmapSize();
+
+        int cacheSize();
+
+        String tempStore();
+
+        int busyTimeout();
+
+        int readers();
+
+        int asyncThreads();
+
+        int shopCacheCapacity();
+
+        boolean residentIndex();
+
+        WriteBehind writeBehind();
+
+        Retention retention();
+
+        interface WriteBehind {
+
+            boolean enabled();
+
+            int interval();
+
+            int batchSize();
+
+        }
+
+        interface Retention {
+
+            boolean enabled();
+
+            int keepDays();
+
+            int interval();
+
+            int batchSize();
+
+            boolean archive();
+
+            String archiveDirectory();
+
+        }
+
     }
 
     interface Defaults {
@@ -57,12 +109,21 @@ public interface SlabbyConfig {
             interface Hoppers {
                 boolean enabled();
                 boolean batches();
+                int interval();
             }
 
         }
 
     }
 
+    interface Settlement {
+
+        boolean enabled();
+
+        int interval();
+
+    }
+
     interface Lands {
         int minX();
         int maxX();
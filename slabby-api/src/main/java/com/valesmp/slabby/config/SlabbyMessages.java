@@ -2,6 +2,7 @@ package com.valesmp.slabby.config;
 
 import net.kyori.adventure.text.Component;
 
+import java.time.LocalDate;
 import java.util.Date;
 
 public interface SlabbyMessages {
@@ -159,6 +160,14 @@ public interface SlabbyMessages {
             Component title();
         }
 
+        interface Rollup {
+            Component title(final Component action);
+            Component count(final int count);
+            Component amount(final double amount);
+            Component quantity(final long quantity);
+            Component day(final LocalDate day);
+        }
+
         Component title();
 
         Buy buy();
@@ -173,6 +182,7 @@ public interface SlabbyMessages {
         NoteChanged noteChanged();
         NameChanged nameChanged();
         ShopDestroyed shopDestroyed();
+        Rollup rollup();
 
         Component player(final Component displayName);
         Component date(final Date date);
@@ -334,6 +344,7 @@ public interface SlabbyMessages {
         Component noInventorySpace();
         Component unrecoverableException();
         Component shopOutOfSpace();
+        Component offerChanged();
     }
 
 }
@@ -0,0 +1,10 @@
+package com.valesmp.slabby.exception;
+
+import lombok.experimental.StandardException;
+
+/**
+ * The shop was changed by someone else since it was read. The shop has been reloaded when this is thrown, so the change
+ * can be validated and applied again.
+ */
+@StandardException
+public final class StaleShopException extends SlabbyException {}
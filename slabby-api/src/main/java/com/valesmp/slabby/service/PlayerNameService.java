@@ -0,0 +1,43 @@
+package com.valesmp.slabby.service;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Player names for menus, kept in a bounded cache. Looking up a name that is not cached can hit the disk, so it is only
+ * done off the main thread.
+ */
+public interface PlayerNameService {
+
+    /**
+     * Shown in place of a name that is still being resolved.
+     */
+    String PLACEHOLDER = "...";
+
+    /**
+     * The cached name of the player, or null if it was not resolved yet. Never blocks.
+     */
+    String cached(final UUID uniqueId);
+
+    /**
+     * Resolves the name of the player on the calling thread. Players that never joined get their unique id as name.
+     * Do not call this on the main thread.
+     */
+    String name(final UUID uniqueId);
+
+    /**
+     * Resolves the name of the player off the main thread.
+     */
+    CompletableFuture<String> resolve(final UUID uniqueId);
+
+    void remember(final UUID uniqueId, final String name);
+
+    /**
+     * Resolves every name that is not cached yet on the calling thread. Do not call this on the main thread.
+     */
+    default void warm(final Collection<UUID> uniqueIds) {
+        uniqueIds.forEach(this::name);
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.valesmp.slabby.shop;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking view of the {@link ShopRepository}. Lookups run off the server thread and complete their futures there,
+ * use {@link #mainThread()} to continue on the server thread.
+ */
+public interface AsyncShopRepository {
+
+    ShopRepository blocking();
+
+    <T> CompletableFuture<Optional<Shop>> shopById(final T id);
+
+    CompletableFuture<Optional<Shop>> shopAt(final int x, final int y, final int z, final String world);
+
+    CompletableFuture<Optional<Shop>> shopWithInventoryAt(final int x, final int y, final int z, final String world);
+
+    CompletableFuture<Collection<Shop>> shopsOf(final UUID uniqueId, final Shop.State state);
+
+    CompletableFuture<Collection<Shop>> shopsByItem(final String item);
+
+    CompletableFuture<Optional<Shop>> locate(final String item, final Shop.Side side, final boolean ascending, final int minX, final int minZ, final int maxX, final int maxZ, final String world);
+
+    CompletableFuture<Collection<Shop>> shopsInArea(final int minX, final int minZ, final int maxX, final int maxZ, final String world);
+
+    CompletableFuture<Boolean> isShopOrInventory(final int x, final int y, final int z, final String world);
+
+    CompletableFuture<Collection<ShopOwner>> owners(final Shop shop);
+
+    CompletableFuture<Collection<ShopLog>> logs(final Shop shop);
+
+    CompletableFuture<List<ShopLog>> logs(final Shop shop, final ShopLog after, final int limit);
+
+    CompletableFuture<List<ShopLogRollup>> rollups(final Shop shop, final ShopLogRollup after, final int limit);
+
+    /**
+     * Runs any other blocking repository work off the server thread.
+     */
+    <T> CompletableFuture<T> supply(final Callable<T> task);
+
+    Executor mainThread();
+
+    default <T> CompletableFuture<Void> thenOnMainThread(final CompletableFuture<T> future, final Consumer<? super T> action) {
+        return future.thenAcceptAsync(action, mainThread());
+    }
+
+}
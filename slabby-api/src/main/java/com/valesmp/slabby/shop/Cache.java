@@ -1,9 +1,9 @@
 package com.valesmp.slabby.shop;
 
-import java.time.Duration;
-
 public interface Cache {
 
-    void expire(final Duration time);
+    int size();
+
+    int capacity();
 
 }
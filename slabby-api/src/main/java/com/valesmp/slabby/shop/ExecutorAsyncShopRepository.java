@@ -0,0 +1,119 @@
+package com.valesmp.slabby.shop;
+
+import com.valesmp.slabby.exception.UnrecoverableException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+public final class ExecutorAsyncShopRepository implements AsyncShopRepository {
+
+    private final ShopRepository repository;
+
+    private final Executor executor;
+
+    private final Executor mainThread;
+
+    public ExecutorAsyncShopRepository(final ShopRepository repository, final Executor executor, final Executor mainThread) {
+        this.repository = repository;
+        this.executor = executor;
+        this.mainThread = mainThread;
+    }
+
+    @Override
+    public ShopRepository blocking() {
+        return this.repository;
+    }
+
+    @Override
+    public <T> CompletableFuture<Optional<Shop>> shopById(final T id) {
+        return supply(() -> this.repository.shopById(id));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Shop>> shopAt(final int x, final int y, final int z, final String world) {
+        return supply(() -> this.repository.shopAt(x, y, z, world));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Shop>> shopWithInventoryAt(final int x, final int y, final int z, final String world) {
+        return supply(() -> this.repository.shopWithInventoryAt(x, y, z, world));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Shop>> shopsOf(final UUID uniqueId, final Shop.State state) {
+        return supply(() -> this.repository.shopsOf(uniqueId, state));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Shop>> shopsByItem(final String item) {
+        return supply(() -> this.repository.shopsByItem(item));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Shop>> locate(final String item, final Shop.Side side, final boolean ascending, final int minX, final int minZ, final int maxX, final int maxZ, final String world) {
+        return supply(() -> this.repository.locate(item, side, ascending, minX, minZ, maxX, maxZ, world));
+    }
+
+    @Override
+    public CompletableFuture<Collection<Shop>> shopsInArea(final int minX, final int minZ, final int maxX, final int maxZ, final String world) {
+        return supply(() -> this.repository.shopsInArea(minX, minZ, maxX, maxZ, world));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isShopOrInventory(final int x, final int y, final int z, final String world) {
+        return supply(() -> this.repository.isShopOrInventory(x, y, z, world));
+    }
+
+    //NOTE: The collections are copied, so the lazy collections are read here instead of on the thread that uses them.
+    @Override
+    public CompletableFuture<Collection<ShopOwner>> owners(final Shop shop) {
+        return supply(() -> new ArrayList<>(shop.owners()));
+    }
+
+    @Override
+    public CompletableFuture<Collection<ShopLog>> logs(final Shop shop) {
+        return supply(() -> new ArrayList<>(shop.logs()));
+    }
+
+    @Override
+    public CompletableFuture<List<ShopLog>> logs(final Shop shop, final ShopLog after, final int limit) {
+        return supply(() -> this.repository.logs(shop, after, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<ShopLogRollup>> rollups(final Shop shop, final ShopLogRollup after, final int limit) {
+        return supply(() -> this.repository.rollups(shop, after, limit));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> supply(final Callable<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.call();
+                } catch (final RuntimeException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, this.executor);
+        } catch (final RejectedExecutionException e) {
+            //NOTE: The task is never run on the calling thread instead, that is usually the main thread.
+            return CompletableFuture.failedFuture(new UnrecoverableException("Too many pending repository tasks", e));
+        }
+    }
+
+    @Override
+    public Executor mainThread() {
+        return this.mainThread;
+    }
+
+}
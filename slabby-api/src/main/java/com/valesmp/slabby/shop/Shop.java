@@ -11,7 +11,9 @@ public interface Shop extends Auditable {
 
     @UtilityClass
     final class Names {
+        public final String ID = "id";
         public final String ITEM = "item";
+        public final String ITEM_ID = "itemId";
         public final String X = "x";
         public final String Y = "y";
         public final String Z = "z";
@@ -27,6 +29,9 @@ public interface Shop extends Auditable {
         public final String INVENTORY_Z = "inventoryZ";
         public final String INVENTORY_WORLD = "inventoryWorld";
         public final String STATE = "state";
+        public final String DISPLAY_ENTITY_ID = "displayEntityId";
+        public final String VERSION = "version";
+        public final String LAST_MODIFIED_ON = "lastModifiedOn";
     }
 
     <T> T id();
@@ -103,6 +108,11 @@ public interface Shop extends Auditable {
         return stock() == null || stock() >= quantity;
     }
 
+    /**
+     * Incremented on every write, so a write based on an older read of the shop can be detected.
+     */
+    int version();
+
     UUID displayEntityId();
 
     void displayEntityId(final UUID displayEntityId);
@@ -113,6 +123,12 @@ public interface Shop extends Auditable {
 
     boolean isOwner(final UUID uniqueId);
 
+    /**
+     * The owners with their share of the revenue. Materialized from the owners on first use and kept with the shop until
+     * the owners change, so reading it never touches the database after that.
+     */
+    ShopShares shares();
+
     interface Builder {
          Builder item(final String item);
          Builder location(final Integer x, final Integer y, final Integer z, final String world);
@@ -132,4 +148,12 @@ public interface Shop extends Auditable {
          ACTIVE,
          DELETED,
      }
+
+     /**
+      * Direction of a trade from the client's point of view, buying from or selling to the shop.
+      */
+     enum Side {
+         BUY,
+         SELL,
+     }
 }
\ No newline at end of file
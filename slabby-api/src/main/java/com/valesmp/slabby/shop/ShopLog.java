@@ -3,19 +3,53 @@ package com.valesmp.slabby.shop;
 import com.valesmp.slabby.SlabbyHelper;
 import com.valesmp.slabby.audit.Auditable;
 import com.valesmp.slabby.shop.log.LocationChanged;
+import com.valesmp.slabby.shop.log.LogCodec;
 import com.valesmp.slabby.shop.log.Transaction;
 import com.valesmp.slabby.shop.log.ValueChanged;
 import lombok.Getter;
 import lombok.experimental.Accessors;
+import lombok.experimental.UtilityClass;
 
 import java.util.UUID;
 
 public interface ShopLog extends Auditable {
 
+    @UtilityClass
+    final class Names {
+        public final String ID = "id";
+        public final String SHOP_ID = "shop_id";
+        public final String CREATED_ON = "createdOn";
+        public final String ACTION = "action";
+        public final String DATA = "data";
+        public final String PAYLOAD = "payload";
+    }
+
+    <T> T id();
+
     UUID uniqueId();
     Action action();
+
+    /**
+     * JSON data of logs written before the binary payload existed, null once the log has been migrated.
+     */
     String data();
 
+    byte[] payload();
+
+    /**
+     * The data of the log as an instance of the data class of its action.
+     */
+    @SuppressWarnings("unchecked")
+    default <T> T decode() {
+        if (payload() != null)
+            return LogCodec.decode(action().dataClass(), payload());
+
+        if (data() != null)
+            return (T) SlabbyHelper.api().fromJson(data(), action().dataClass());
+
+        return null;
+    }
+
     @Getter
     @Accessors(fluent = true, chain = false)
     enum Action {
@@ -34,8 +68,8 @@ public interface ShopLog extends Auditable {
         BUY(Transaction.class),
         SELL(Transaction.class),
 
-        DEPOSIT(Transaction.class),
-        WITHDRAW(Transaction.class),
+        DEPOSIT(ValueChanged.Int.class),
+        WITHDRAW(ValueChanged.Int.class),
 
         SHOP_CREATED(Void.class),
         SHOP_DESTROYED(Void.class);
@@ -52,10 +86,11 @@ public interface ShopLog extends Auditable {
         Builder action(final Action action);
         Builder uniqueId(final UUID uniqueId);
         Builder data(final String data);
+        Builder payload(final byte[] payload);
         ShopLog build();
 
         default Builder serialized(final Object any) {
-            return this.data(SlabbyHelper.api().toJson(any));
+            return this.payload(LogCodec.encode(any));
         }
 
     }
@@ -0,0 +1,44 @@
+package com.valesmp.slabby.shop;
+
+import lombok.experimental.UtilityClass;
+
+import java.time.LocalDate;
+
+/**
+ * Totals of the trades, deposits or withdrawals of a shop on one day, kept after the logs they were made of expired.
+ */
+public interface ShopLogRollup {
+
+    @UtilityClass
+    final class Names {
+        public final String ID = "id";
+        public final String SHOP_ID = "shop_id";
+        public final String DAY = "day";
+        public final String ACTION = "action";
+        public final String COUNT = "count";
+        public final String QUANTITY = "quantity";
+        public final String AMOUNT = "amount";
+    }
+
+    <T> T id();
+
+    LocalDate day();
+
+    ShopLog.Action action();
+
+    /**
+     * Amount of logs that were rolled up.
+     */
+    int count();
+
+    /**
+     * Items that were traded, deposited or withdrawn.
+     */
+    long quantity();
+
+    /**
+     * Money that changed hands. Always zero for deposits and withdrawals.
+     */
+    double amount();
+
+}
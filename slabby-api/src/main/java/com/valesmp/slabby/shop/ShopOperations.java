@@ -19,6 +19,28 @@ public interface ShopOperations {
     void buy(final UUID uniqueId, final Shop shop) throws SlabbyException;
     void sell(final UUID uniqueId, final Shop shop) throws SlabbyException;
 
+    /**
+     * Buys several lots as a single trade. Stock, balance and inventory space are checked once, and the economy, the log
+     * and the owner notifications are settled once for all lots.
+     */
+    void buy(final UUID uniqueId, final Shop shop, final int lots) throws SlabbyException;
+
+    /**
+     * Sells several lots as a single trade, see {@link #buy(UUID, Shop, int)}.
+     */
+    void sell(final UUID uniqueId, final Shop shop, final int lots) throws SlabbyException;
+
+    /**
+     * The most lots the player can buy from the shop right now, limited by stock, balance and inventory space.
+     */
+    int maxBuyLots(final UUID uniqueId, final Shop shop);
+
+    /**
+     * The most lots the player can sell to the shop right now, limited by the items they carry, the space left in the
+     * shop and the balance of its owners.
+     */
+    int maxSellLots(final UUID uniqueId, final Shop shop);
+
     void withdraw(final UUID uniqueId, final Shop shop, final int amount) throws SlabbyException;
     void deposit(final UUID uniqueId, final Shop shop, final int amount) throws SlabbyException;
 
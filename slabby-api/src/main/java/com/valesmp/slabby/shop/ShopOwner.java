@@ -19,6 +19,7 @@ public interface ShopOwner extends Auditable {
 
     interface Builder {
 
+        Builder shop(final Shop shop);
         Builder uniqueId(final UUID uniqueId);
         Builder share(final int share);
         ShopOwner build();
@@ -3,6 +3,8 @@ package com.valesmp.slabby.shop;
 import com.valesmp.slabby.exception.SlabbyException;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.Callable;
@@ -19,9 +21,72 @@ public interface ShopRepository {
     void delete(final Shop shop) throws SlabbyException;
     void delete(final ShopOwner shopOwner) throws SlabbyException;
 
+    /**
+     * Writes a change to the shop that is not a trade. The stock is only written by {@link #update(Shop, ShopLog)}, so a
+     * change made from an older copy of the shop never overwrites a trade.
+     */
     void update(final Shop shop) throws SlabbyException;
     void update(final ShopOwner shopOwner) throws SlabbyException;
 
+    /**
+     * Writes the stock of the shop and appends the log as one unit of work, but only if the shop was not changed since it
+     * was read. Otherwise the shop is reloaded and a {@link com.valesmp.slabby.exception.StaleShopException} is thrown.
+     * In write-behind mode the in-memory shop is authoritative, and both are written in the background.
+     */
+    void update(final Shop shop, final ShopLog log) throws SlabbyException;
+
+    /**
+     * Same as {@link #update(Shop, ShopLog)}, and adds the amounts to the ledger of the owners in the same transaction.
+     */
+    void update(final Shop shop, final ShopLog log, final Map<UUID, Double> ledger) throws SlabbyException;
+
+    /**
+     * Adds the amounts to the ledger of the owners. Positive amounts are owed to the owner, negative amounts by the owner.
+     */
+    void ledger(final Map<UUID, Double> amounts) throws SlabbyException;
+
+    /**
+     * Moves the amounts off the ledger into pending settlements, in one transaction. They stay pending until they are
+     * completed or cancelled, settlements that are still pending on startup are put back on the ledger.
+     */
+    void beginSettlement(final Map<UUID, Double> amounts) throws SlabbyException;
+
+    /**
+     * Removes the pending settlements, once the economy paid them out.
+     */
+    void completeSettlement(final Map<UUID, Double> amounts) throws SlabbyException;
+
+    /**
+     * Puts the pending settlements back on the ledger, when the economy did not pay them out.
+     */
+    void cancelSettlement(final Map<UUID, Double> amounts) throws SlabbyException;
+
+    /**
+     * The ledger balance of the owner that was not settled yet. Never touches the database.
+     */
+    double ledgerBalance(final UUID uniqueId);
+
+    /**
+     * Every owner with a ledger balance that was not settled yet. Never touches the database.
+     */
+    Map<UUID, Double> ledgerBalances();
+
+    /**
+     * Appends a log to the shop. Inside a transaction the log is written when the transaction commits.
+     */
+    void log(final Shop shop, final ShopLog log) throws SlabbyException;
+
+    /**
+     * One page of the logs of a shop, newest first. Pass the last log of the previous page to get the next one.
+     */
+    List<ShopLog> logs(final Shop shop, final ShopLog after, final int limit) throws SlabbyException;
+
+    /**
+     * One page of the daily totals of logs that expired, newest day first. Pass the last rollup of the previous page to
+     * get the next one.
+     */
+    List<ShopLogRollup> rollups(final Shop shop, final ShopLogRollup after, final int limit) throws SlabbyException;
+
     void refresh(final Shop shop) throws SlabbyException;
     void refresh(final ShopOwner shopOwner) throws SlabbyException;
 
@@ -37,8 +102,19 @@ public interface ShopRepository {
 
     Collection<Shop> shopsByItem(final String item) throws SlabbyException;
 
+    /**
+     * Best priced shop for the item that can trade at least once in the given direction and is inside the area. Shops
+     * are visited from the best unit price onwards and matched by their indexed location, so only the match is loaded.
+     */
+    Optional<Shop> locate(final String item, final Shop.Side side, final boolean ascending, final int minX, final int minZ, final int maxX, final int maxZ, final String world) throws SlabbyException;
+
     Collection<Shop> shopsInArea(final int minX, final int minZ, final int maxX, final int maxZ, final String world);
 
+    /**
+     * Cheap check that never touches the database. When false, the chunk contains no active shops or linked inventories.
+     */
+    boolean hasShopsInChunk(final int chunkX, final int chunkZ, final String world);
+
     boolean isShopOrInventory(final int x, final int y, final int z, final String world) throws SlabbyException;
 
     @SuppressWarnings("UnusedReturnValue")
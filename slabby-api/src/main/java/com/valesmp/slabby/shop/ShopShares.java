@@ -0,0 +1,56 @@
+package com.valesmp.slabby.shop;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of the owners of a shop, with their share as a fraction of the revenue. Ownership checks and
+ * payout splits only need this, so they never touch the database.
+ */
+public final class ShopShares {
+
+    private final Map<UUID, Double> fractions;
+
+    private ShopShares(final Map<UUID, Double> fractions) {
+        this.fractions = fractions;
+    }
+
+    public static ShopShares of(final Collection<? extends ShopOwner> owners) {
+        final var fractions = new HashMap<UUID, Double>();
+
+        for (final var owner : owners)
+            fractions.put(owner.uniqueId(), owner.share() * 0.01);
+
+        return new ShopShares(Map.copyOf(fractions));
+    }
+
+    public boolean contains(final UUID uniqueId) {
+        return this.fractions.containsKey(uniqueId);
+    }
+
+    /**
+     * The share of the owner between 0 and 1, or 0 if the player does not own the shop.
+     */
+    public double fraction(final UUID uniqueId) {
+        return this.fractions.getOrDefault(uniqueId, 0d);
+    }
+
+    public Set<UUID> uniqueIds() {
+        return this.fractions.keySet();
+    }
+
+    /**
+     * Splits the amount between the owners according to their share.
+     */
+    public Map<UUID, Double> split(final double amount) {
+        final var result = new HashMap<UUID, Double>();
+
+        this.fractions.forEach((uniqueId, fraction) -> result.put(uniqueId, amount * fraction));
+
+        return result;
+    }
+
+}
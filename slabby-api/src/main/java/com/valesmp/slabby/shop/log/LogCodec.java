@@ -0,0 +1,234 @@
+package com.valesmp.slabby.shop.log;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Binary encoding of shop log data. The first byte is the format version, the rest depends on the data class of the
+ * log action, so the payload itself carries no type information. Doubles and ints are stored fixed width, coordinates
+ * as zigzag varints and strings as a varint length followed by UTF-8. Nullable values are preceded by a byte with one
+ * presence bit per value.
+ */
+@UtilityClass
+public final class LogCodec {
+
+    public final int VERSION = 1;
+
+    public byte[] encode(final Object data) {
+        if (data == null)
+            return null;
+
+        final var writer = new Writer();
+
+        writer.writeByte(VERSION);
+
+        switch (data) {
+            case Transaction it -> {
+                writer.writeDouble(it.amount());
+                writer.writeInt(it.quantity());
+            }
+            case ValueChanged.Int it -> {
+                writer.writeByte(flags(it.from(), it.to()));
+
+                if (it.from() != null)
+                    writer.writeInt(it.from());
+
+                if (it.to() != null)
+                    writer.writeInt(it.to());
+            }
+            case ValueChanged.Double it -> {
+                writer.writeByte(flags(it.from(), it.to()));
+
+                if (it.from() != null)
+                    writer.writeDouble(it.from());
+
+                if (it.to() != null)
+                    writer.writeDouble(it.to());
+            }
+            case ValueChanged.String it -> {
+                writer.writeByte(flags(it.from(), it.to()));
+
+                if (it.from() != null)
+                    writer.writeString(it.from());
+
+                if (it.to() != null)
+                    writer.writeString(it.to());
+            }
+            case LocationChanged it -> {
+                writer.writeByte(flags(it.x(), it.y(), it.z(), it.world()));
+
+                if (it.x() != null)
+                    writer.writeVarInt(it.x());
+
+                if (it.y() != null)
+                    writer.writeVarInt(it.y());
+
+                if (it.z() != null)
+                    writer.writeVarInt(it.z());
+
+                if (it.world() != null)
+                    writer.writeString(it.world());
+            }
+            default -> throw new IllegalArgumentException("No log encoding for " + data.getClass().getName());
+        }
+
+        return writer.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T decode(final Class<?> dataClass, final byte[] payload) {
+        if (payload == null || dataClass == Void.class)
+            return null;
+
+        final var reader = new Reader(payload);
+        final var version = reader.readByte();
+
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unknown log encoding version " + version);
+
+        if (dataClass == Transaction.class)
+            return (T) new Transaction(reader.readDouble(), reader.readInt());
+
+        if (dataClass == ValueChanged.Int.class) {
+            final var flags = reader.readByte();
+            return (T) new ValueChanged.Int((flags & 1) != 0 ? reader.readInt() : null, (flags & 2) != 0 ? reader.readInt() : null);
+        }
+
+        if (dataClass == ValueChanged.Double.class) {
+            final var flags = reader.readByte();
+            return (T) new ValueChanged.Double((flags & 1) != 0 ? reader.readDouble() : null, (flags & 2) != 0 ? reader.readDouble() : null);
+        }
+
+        if (dataClass == ValueChanged.String.class) {
+            final var flags = reader.readByte();
+            return (T) new ValueChanged.String((flags & 1) != 0 ? reader.readString() : null, (flags & 2) != 0 ? reader.readString() : null);
+        }
+
+        if (dataClass == LocationChanged.class) {
+            final var flags = reader.readByte();
+
+            //NOTE: Arguments are evaluated left to right, which is the order they were written in.
+            return (T) new LocationChanged(
+                    (flags & 1) != 0 ? reader.readVarInt() : null,
+                    (flags & 2) != 0 ? reader.readVarInt() : null,
+                    (flags & 4) != 0 ? reader.readVarInt() : null,
+                    (flags & 8) != 0 ? reader.readString() : null);
+        }
+
+        throw new IllegalArgumentException("No log encoding for " + dataClass.getName());
+    }
+
+    private int flags(final Object... values) {
+        var flags = 0;
+
+        for (var i = 0; i < values.length; i++) {
+            if (values[i] != null)
+                flags |= 1 << i;
+        }
+
+        return flags;
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer = new byte[32];
+
+        private int size;
+
+        private void writeByte(final int value) {
+            if (this.size == this.buffer.length)
+                this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+
+            this.buffer[this.size++] = (byte) value;
+        }
+
+        private void writeInt(final int value) {
+            writeByte(value >>> 24);
+            writeByte(value >>> 16);
+            writeByte(value >>> 8);
+            writeByte(value);
+        }
+
+        private void writeDouble(final double value) {
+            final var bits = Double.doubleToLongBits(value);
+
+            writeInt((int) (bits >>> 32));
+            writeInt((int) bits);
+        }
+
+        private void writeVarInt(final int value) {
+            var zigzag = (value << 1) ^ (value >> 31);
+
+            while ((zigzag & ~0x7F) != 0) {
+                writeByte((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+
+            writeByte(zigzag);
+        }
+
+        private void writeString(final String value) {
+            final var bytes = value.getBytes(StandardCharsets.UTF_8);
+
+            writeVarInt(bytes.length);
+
+            for (final var b : bytes)
+                writeByte(b);
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(this.buffer, this.size);
+        }
+
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        private Reader(final byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private int readByte() {
+            return this.buffer[this.position++] & 0xFF;
+        }
+
+        private int readInt() {
+            return readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+        }
+
+        private double readDouble() {
+            return Double.longBitsToDouble((long) readInt() << 32 | readInt() & 0xFFFFFFFFL);
+        }
+
+        private int readVarInt() {
+            var zigzag = 0;
+            var shift = 0;
+            int b;
+
+            do {
+                b = readByte();
+                zigzag |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        private String readString() {
+            final var length = readVarInt();
+            final var value = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+
+            this.position += length;
+
+            return value;
+        }
+
+    }
+
+}
@@ -1,11 +1,13 @@
 package com.valesmp.slabby.shop.log;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
 @Accessors(fluent = true, chain = false)
+@EqualsAndHashCode
 @Getter
 @Setter
 @RequiredArgsConstructor
@@ -8,4 +8,10 @@ public interface SerializationWrapper {
 
     <T> T deserialize(final String item) throws SlabbyException;
 
+    /**
+     * Stable 64-bit hash of the canonical form of a serialized item. Items that only differ in amount, or that were
+     * serialized by an older version, share the same fingerprint.
+     */
+    long fingerprint(final String item) throws SlabbyException;
+
 }
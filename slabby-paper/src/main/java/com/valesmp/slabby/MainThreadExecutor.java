@@ -0,0 +1,77 @@
+package com.valesmp.slabby;
+
+import lombok.RequiredArgsConstructor;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+
+/**
+ * Runs tasks on the main thread, right away when already on it. Tasks from other threads are queued until the scheduler
+ * runs them, so deliveries and refunds submitted while the plugin is being disabled are kept until {@link #close()}
+ * runs them. Once closed, tasks from other threads are rejected instead of being dropped.
+ */
+@RequiredArgsConstructor
+final class MainThreadExecutor implements Executor {
+
+    private final Plugin plugin;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private boolean closed;
+
+    @Override
+    public void execute(final Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+            return;
+        }
+
+        synchronized (this) {
+            if (this.closed)
+                throw new RejectedExecutionException("Main thread tasks are not accepted after the plugin was disabled");
+
+            this.tasks.add(task);
+        }
+
+        //NOTE: A disabled plugin cannot schedule tasks, the queued task waits for drain instead.
+        if (this.plugin.isEnabled()) {
+            try {
+                Bukkit.getScheduler().runTask(this.plugin, this::drain);
+            } catch (final IllegalPluginAccessException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Runs every queued task. Only called on the main thread.
+     */
+    void drain() {
+        Runnable task;
+
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                this.plugin.getLogger().log(Level.SEVERE, "Error while running main thread task", e);
+            }
+        }
+    }
+
+    /**
+     * Rejects new tasks and runs the ones that are still queued. Only called on the main thread.
+     */
+    void close() {
+        synchronized (this) {
+            this.closed = true;
+        }
+
+        drain();
+    }
+
+}
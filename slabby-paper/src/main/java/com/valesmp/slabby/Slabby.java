@@ -7,14 +7,20 @@ import com.google.gson.GsonBuilder;
 import com.valesmp.slabby.command.SlabbyCommand;
 import com.valesmp.slabby.config.BukkitSlabbyMessages;
 import com.valesmp.slabby.config.BukkitSlabbyConfig;
+import com.valesmp.slabby.config.MessageTemplate;
 import com.valesmp.slabby.config.SlabbyConfig;
 import com.valesmp.slabby.listener.SlabbyListener;
 import com.valesmp.slabby.permission.SlabbyPermissions;
 import com.valesmp.slabby.service.BukkitExceptionService;
+import com.valesmp.slabby.service.BukkitPlayerNameService;
 import com.valesmp.slabby.service.ExceptionService;
+import com.valesmp.slabby.service.PlayerNameService;
+import com.valesmp.slabby.shop.AsyncShopRepository;
 import com.valesmp.slabby.shop.BukkitShopOperations;
+import com.valesmp.slabby.shop.ExecutorAsyncShopRepository;
+import com.valesmp.slabby.shop.LedgerSettlement;
+import com.valesmp.slabby.shop.RestockAccumulator;
 import com.valesmp.slabby.shop.SQLiteShopRepository;
-import com.valesmp.slabby.shop.ShopOperations;
 import com.valesmp.slabby.wrapper.claim.ClaimWrapper;
 import com.valesmp.slabby.wrapper.claim.LandsClaimWrapper;
 import com.valesmp.slabby.wrapper.economy.EconomyWrapper;
@@ -51,9 +57,12 @@ import com.valesmp.slabby.importer.slabbo.SlabboShop;
 import java.io.File;
 import java.nio.file.Path;
 import java.sql.SQLException;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 @Plugin(name = "Slabby", version = "1.1.2")
@@ -92,6 +101,18 @@ public final class Slabby extends JavaPlugin implements SlabbyAPI {
     @Getter
     private SQLiteShopRepository repository;
 
+    @Getter
+    private AsyncShopRepository asyncRepository;
+
+    private ThreadPoolExecutor asyncExecutor;
+
+    private MainThreadExecutor mainThread;
+
+    private RestockAccumulator restockAccumulator;
+
+    //NOTE: Only present when settlement is enabled.
+    private LedgerSettlement settlement;
+
     @Getter
     private EconomyWrapper economy;
 
@@ -117,7 +138,10 @@ public final class Slabby extends JavaPlugin implements SlabbyAPI {
     private final ExceptionService exceptionService = new BukkitExceptionService(this);
 
     @Getter
-    private final ShopOperations operations = new BukkitShopOperations(this);
+    private final PlayerNameService names = new BukkitPlayerNameService(this);
+
+    @Getter
+    private final BukkitShopOperations operations = new BukkitShopOperations(this);
 
     private final YamlConfigurationLoader configLoader = YamlConfigurationLoader.builder()
             .path(Path.of(getDataFolder().getAbsolutePath(), "config.yml"))
@@ -125,6 +149,8 @@ public final class Slabby extends JavaPlugin implements SlabbyAPI {
 
     private final YamlConfigurationLoader messagesLoader = YamlConfigurationLoader.builder()
             .path(Path.of(getDataFolder().getAbsolutePath(), "messages.yml"))
+            .defaultOptions(options -> options.serializers(builder -> builder.register(MessageTemplate.class,
+                    new MessageTemplate.Serializer((path, error) -> getLogger().warning("Invalid tag in message %s %s".formatted(path, error))))))
             .build();
 
     private final Gson gson = new GsonBuilder()
@@ -172,11 +198,26 @@ public final class Slabby extends JavaPlugin implements SlabbyAPI {
 
         SlabbyHelper.init(this);
 
-        getServer().getPluginManager().registerEvents(new SlabbyListener(this), this);
+        this.restockAccumulator = new RestockAccumulator(this, this.operations);
 
-        getServer().getServicesManager().register(SlabbyAPI.class, this, this, ServicePriority.Highest);
+        final var settlement = this.configuration.settlement();
+
+        if (settlement != null && settlement.enabled())
+            this.settlement = new LedgerSettlement(this);
+
+        getServer().getPluginManager().registerEvents(new SlabbyListener(this, this.restockAccumulator, this.settlement), this);
+
+        final var restockInterval = Math.max(1, this.configuration.restock().chests().hoppers().interval());
+
+        getServer().getScheduler().runTaskTimer(this, this.restockAccumulator::flush, restockInterval, restockInterval);
+
+        if (this.settlement != null) {
+            final var settlementInterval = Math.max(1, settlement.interval()) * 20L;
+
+            getServer().getScheduler().runTaskTimer(this, this.settlement::settleAll, settlementInterval, settlementInterval);
+        }
 
-        getServer().getScheduler().scheduleSyncRepeatingTask(this, () -> this.repository.shopCache().expire(Duration.ofMinutes(1)), 20 * 60, 20 * 60);
+        getServer().getServicesManager().register(SlabbyAPI.class, this, this, ServicePriority.Highest);
     }
 
     private void addSlabboMapsCommand(final PaperCommandManager commandManager) {
@@ -195,6 +236,36 @@ public final class Slabby extends JavaPlugin implements SlabbyAPI {
     public void onDisable() {
         getServer().getServicesManager().unregister(this);
         HandlerList.unregisterAll(this);
+        if (this.restockAccumulator != null) {
+            this.restockAccumulator.flush();
+        }
+        if (this.asyncExecutor != null) {
+            this.asyncExecutor.shutdown();
+
+            //NOTE: Trades that are still running may wait for the main thread, so its tasks are run while waiting for them.
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+            try {
+                while (!this.asyncExecutor.awaitTermination(50, TimeUnit.MILLISECONDS)) {
+                    this.mainThread.drain();
+
+                    if (System.nanoTime() > deadline) {
+                        getLogger().warning("Async repository tasks did not finish in time");
+                        break;
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        //NOTE: Deliveries and refunds of finished trades are handed out before the settlement and the database close.
+        if (this.mainThread != null) {
+            this.mainThread.close();
+        }
+        //NOTE: Settled after the async tasks finished, trades that were still running book their revenue first.
+        if (this.settlement != null) {
+            this.settlement.settleAllNow();
+        }
         if (this.repository != null) {
             this.repository.close();
         }
@@ -209,9 +280,31 @@ public final class Slabby extends JavaPlugin implements SlabbyAPI {
             throw new RuntimeException(e);
         }
 
+        setupAsyncRepository();
+
         return true;
     }
 
+    //NOTE: A small bounded pool instead of virtual threads, the single writer and the few readers already limit how many
+    //      lookups can run at once. When the queue is full the task is rejected and its future fails, running it on the
+    //      caller would stall the main thread instead.
+    private void setupAsyncRepository() {
+        final var threads = Math.max(1, this.configuration.database().asyncThreads());
+        final var count = new AtomicInteger();
+
+        this.asyncExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(256), runnable -> {
+            final var thread = new Thread(runnable, "Slabby Async " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.asyncExecutor.allowCoreThreadTimeOut(true);
+
+        this.mainThread = new MainThreadExecutor(this);
+
+        this.asyncRepository = new ExecutorAsyncShopRepository(this.repository, this.asyncExecutor, this.mainThread);
+    }
+
     private boolean setupConfig() {
         try {
             saveDefaultConfig();
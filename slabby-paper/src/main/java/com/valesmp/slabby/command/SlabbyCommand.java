@@ -103,14 +103,11 @@ public final class SlabbyCommand extends BaseCommand {
                 ? new ClaimWrapper.Area(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, "world")
                 : api.claim().getArea();
 
-        @SuppressWarnings("resource")
+        //NOTE: The market index matches the area by the indexed shop locations, so only the shop that is found is loaded.
         final var shop = this.api
                 .repository()
-                .shopsInArea(area.minX(), area.minZ(), area.maxX(), area.maxZ(), area.world())
-                .stream()
-                .filter(orderBy)
-                .filter(it -> api.serialization().<ItemStack>deserialize(it.item()).isSimilar(itemStack))
-                .min(orderBy);
+                .locate(api.serialization().serialize(itemStack.clone()), orderBy.getSide(), orderBy.isAscending(),
+                        area.minX(), area.minZ(), area.maxX(), area.maxZ(), area.world());
 
         if (shop.isPresent()) {
             final var success = giveCompass(player, shop.get());
@@ -28,6 +28,9 @@ public final class BukkitSlabbyConfig implements SlabbyConfig {
     @Comment("Options for lands")
     private BukkitLands lands;
 
+    @Comment("Options for paying out shop revenue to owners")
+    private BukkitSettlement settlement = new BukkitSettlement();
+
     @Accessors(fluent = true, chain = false)
     @Getter
     @ConfigSerializable
@@ -36,6 +39,83 @@ public final class BukkitSlabbyConfig implements SlabbyConfig {
         @Comment("SQLite3 connection url")
         private String url;
 
+        @Comment("SQLite journal mode: DELETE, TRUNCATE, PERSIST, MEMORY, WAL or OFF. WAL lets reads continue while a write commits.")
+        private String journalMode = "WAL";
+
+        @Comment("SQLite synchronous level: OFF, NORMAL, FULL or EXTRA. NORMAL is safe in WAL mode and avoids a sync on every commit.")
+        private String synchronous = "NORMAL";
+
+        @Comment("Bytes of the database file SQLite may memory map. 0 disables memory mapping.")
+        private long mmapSize = 268435456;
+
+        @Comment("SQLite page cache size. Negative values are in KiB, positive values in pages.")
+        private int cacheSize = -16384;
+
+        @Comment("Where SQLite keeps temporary tables and indices: DEFAULT, FILE or MEMORY.")
+        private String tempStore = "MEMORY";
+
+        @Comment("Milliseconds a connection waits for a lock held by another connection before failing.")
+        private int busyTimeout = 5000;
+
+        @Comment("Read-only connections used next to the single writer connection. Only used in WAL mode.")
+        private int readers = 2;
+
+        @Comment("Threads that load shops, owners and logs for menus without blocking the server. A few are enough, the database connections limit how many run at once.")
+        private int asyncThreads = 2;
+
+        @Comment("Shop and empty block locations kept in the shop lookup cache. Each entry takes about 100 bytes, entries that were not used recently are evicted first.")
+        private int shopCacheCapacity = 65536;
+
+        @Comment("Keep the locations of all active shops and linked inventories in memory, so location lookups that miss never query the database.")
+        private boolean residentIndex;
+
+        @Comment("Options for writing shop updates and logs in the background")
+        private BukkitWriteBehind writeBehind;
+
+        @Accessors(fluent = true, chain = false)
+        @Getter
+        @ConfigSerializable
+        final static class BukkitWriteBehind implements WriteBehind {
+
+            @Comment("Shop updates and logs from trades, deposits and withdrawals are written by a background thread instead of the main thread.")
+            private boolean enabled;
+
+            @Comment("Milliseconds between background writes.")
+            private int interval = 1000;
+
+            @Comment("Amount of pending shop updates and logs that triggers a background write before the interval has passed.")
+            private int batchSize = 256;
+
+        }
+
+        @Comment("Options for rolling up and archiving old trade, deposit and withdraw logs")
+        private BukkitRetention retention = new BukkitRetention();
+
+        @Accessors(fluent = true, chain = false)
+        @Getter
+        @ConfigSerializable
+        final static class BukkitRetention implements Retention {
+
+            @Comment("Trade, deposit and withdraw logs older than keep-days are replaced by daily totals per shop.")
+            private boolean enabled;
+
+            @Comment("Days these logs are kept as they are.")
+            private int keepDays = 90;
+
+            @Comment("Minutes between retention runs.")
+            private int interval = 1440;
+
+            @Comment("Logs rolled up per transaction. Smaller batches hold the database lock for a shorter time.")
+            private int batchSize = 1000;
+
+            @Comment("Write the logs to compressed archive files before they are removed from the database.")
+            private boolean archive = true;
+
+            @Comment("Directory of the archive files, relative to the plugin directory.")
+            private String archiveDirectory = "archive";
+
+        }
+
     }
 
     @Accessors(fluent = true, chain = false)
@@ -87,6 +167,9 @@ public final class BukkitSlabbyConfig implements SlabbyConfig {
                 @Comment("If true, items will be removed from the linked inventory in batches of shop quantity or the item's max quantity, whichever is less.")
                 private boolean batches;
 
+                @Comment("Ticks between adding the items moved by hoppers to the shop stock. Each shop gets one update and one deposit log per interval.")
+                private int interval = 20;
+
             }
 
         }
@@ -112,6 +195,19 @@ public final class BukkitSlabbyConfig implements SlabbyConfig {
 
     }
 
+    @Accessors(fluent = true, chain = false)
+    @Getter
+    @ConfigSerializable
+    final static class BukkitSettlement implements Settlement {
+
+        @Comment("Shop revenue and sale costs are booked on a ledger per owner, and settled with the economy in batches instead of on every trade.")
+        private boolean enabled;
+
+        @Comment("Seconds between settlements. Owners are also settled when they join.")
+        private int interval = 60;
+
+    }
+
     @Accessors(fluent = true, chain = false)
     @Getter
     @ConfigSerializable
@@ -3,11 +3,11 @@ package com.valesmp.slabby.config;
 import lombok.Getter;
 import lombok.experimental.Accessors;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.text.minimessage.tag.resolver.Formatter;
 import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import org.spongepowered.configurate.objectmapping.ConfigSerializable;
 
+import java.time.LocalDate;
 import java.util.Date;
 
 @ConfigSerializable
@@ -35,37 +35,37 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
         @ConfigSerializable
         final static class BukkitBuy implements Buy {
 
-            private String title;
-            private String price;
-            private String stock;
-            private String stacks;
-            private String message;
-            private String messageOwner;
-            private String insufficientBalance;
+            private MessageTemplate title;
+            private MessageTemplate price;
+            private MessageTemplate stock;
+            private MessageTemplate stacks;
+            private MessageTemplate message;
+            private MessageTemplate messageOwner;
+            private MessageTemplate insufficientBalance;
 
             @Override
             public Component title(final Component displayName, final int quantity) {
-                return MiniMessage.miniMessage().deserialize(this.title, Placeholder.component("item", displayName), Formatter.number("quantity", quantity));
+                return this.title.render(Placeholder.component("item", displayName), Formatter.number("quantity", quantity));
             }
 
             @Override
             public Component price(final double price) {
-                return MiniMessage.miniMessage().deserialize(this.price, Formatter.number("price", price));
+                return this.price.render(Formatter.number("price", price));
             }
 
             @Override
             public Component stock(final int stock) {
-                return MiniMessage.miniMessage().deserialize(this.stock, Formatter.number("stock", stock));
+                return this.stock.render(Formatter.number("stock", stock));
             }
 
             @Override
             public Component stacks(final int stacks) {
-                return MiniMessage.miniMessage().deserialize(this.stacks, Formatter.number("stacks", stacks));
+                return this.stacks.render(Formatter.number("stacks", stacks));
             }
 
             @Override
             public Component message(final Component displayName, final int quantity, final double buyPrice) {
-                return MiniMessage.miniMessage().deserialize(this.message,
+                return this.message.render(
                         Placeholder.component("item", displayName),
                         Formatter.number("quantity", quantity),
                         Formatter.number("price", buyPrice));
@@ -73,7 +73,7 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
 
             @Override
             public Component messageOwner(final Component client, final int quantity, final Component item, final double total) {
-                return MiniMessage.miniMessage().deserialize(this.messageOwner,
+                return this.messageOwner.render(
                         Placeholder.component("client", client),
                         Formatter.number("quantity", quantity),
                         Placeholder.component("item", item),
@@ -82,44 +82,44 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
 
             @Override
             public Component insufficientBalance() {
-                return MiniMessage.miniMessage().deserialize(this.insufficientBalance);
+                return this.insufficientBalance.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitSell implements Sell {
 
-            private String title;
-            private String price;
-            private String stock;
-            private String stacks;
-            private String message;
-            private String messageOwner;
-            private String insufficientBalance;
+            private MessageTemplate title;
+            private MessageTemplate price;
+            private MessageTemplate stock;
+            private MessageTemplate stacks;
+            private MessageTemplate message;
+            private MessageTemplate messageOwner;
+            private MessageTemplate insufficientBalance;
 
             @Override
             public Component title(final Component displayName, final int quantity) {
-                return MiniMessage.miniMessage().deserialize(this.title, Placeholder.component("item", displayName), Formatter.number("quantity", quantity));
+                return this.title.render(Placeholder.component("item", displayName), Formatter.number("quantity", quantity));
             }
 
             @Override
             public Component price(final double price) {
-                return MiniMessage.miniMessage().deserialize(this.price, Formatter.number("price", price));
+                return this.price.render(Formatter.number("price", price));
             }
 
             @Override
             public Component stock(final int stock) {
-                return MiniMessage.miniMessage().deserialize(this.stock, Formatter.number("stock", stock));
+                return this.stock.render(Formatter.number("stock", stock));
             }
 
             @Override
             public Component stacks(final int stacks) {
-                return MiniMessage.miniMessage().deserialize(this.stacks, Formatter.number("stacks", stacks));
+                return this.stacks.render(Formatter.number("stacks", stacks));
             }
 
             @Override
             public Component message(final Component displayName, final int quantity, final double sellPrice) {
-                return MiniMessage.miniMessage().deserialize(this.message,
+                return this.message.render(
                         Placeholder.component("item", displayName),
                         Formatter.number("quantity", quantity),
                         Formatter.number("price", sellPrice));
@@ -127,7 +127,7 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
 
             @Override
             public Component messageOwner(final Component client, final int quantity, final Component item, final double total) {
-                return MiniMessage.miniMessage().deserialize(this.messageOwner,
+                return this.messageOwner.render(
                         Placeholder.component("client", client),
                         Formatter.number("quantity", quantity),
                         Placeholder.component("item", item),
@@ -136,35 +136,35 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
 
             @Override
             public Component insufficientBalance() {
-                return MiniMessage.miniMessage().deserialize(this.insufficientBalance);
+                return this.insufficientBalance.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitFunds implements Funds {
 
-            private String title;
-            private String balance;
+            private MessageTemplate title;
+            private MessageTemplate balance;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component balance(final double balance) {
-                return MiniMessage.miniMessage().deserialize(this.balance, Formatter.number("balance", balance));
+                return this.balance.render(Formatter.number("balance", balance));
             }
         }
 
         @ConfigSerializable
         final static class BukkitNote implements Note {
 
-            private String title;
+            private MessageTemplate title;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
         }
 
@@ -172,11 +172,11 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
         private BukkitSell sell;
         private BukkitFunds funds;
         private BukkitNote note;
-        private String title;
+        private MessageTemplate title;
 
         @Override
         public Component title() {
-            return MiniMessage.miniMessage().deserialize(this.title);
+            return this.title.render();
         }
 
     }
@@ -184,31 +184,31 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
     @ConfigSerializable
     final static class BukkitCommandBlock implements CommandBlock {
 
-        private String title;
-        private String owners;
-        private String selling;
-        private String buyPrice;
-        private String sellPrice;
+        private MessageTemplate title;
+        private MessageTemplate owners;
+        private MessageTemplate selling;
+        private MessageTemplate buyPrice;
+        private MessageTemplate sellPrice;
 
         @Override
         public Component title() {
-            return MiniMessage.miniMessage().deserialize(this.title);
+            return this.title.render();
         }
 
         @Override
         public Component owners(final String[] names) {
             final var namesString = String.join(", ", names);
-            return MiniMessage.miniMessage().deserialize(this.owners, Placeholder.unparsed("names", namesString));
+            return this.owners.render(Placeholder.unparsed("names", namesString));
         }
 
         @Override
         public Component selling(final Component displayName) {
-            return MiniMessage.miniMessage().deserialize(this.selling, Placeholder.component("item", displayName));
+            return this.selling.render(Placeholder.component("item", displayName));
         }
 
         @Override
         public Component buyPrice(int quantity, double buyPrice, double eachPrice) {
-            return MiniMessage.miniMessage().deserialize(this.buyPrice,
+            return this.buyPrice.render(
                     Formatter.number("quantity", quantity),
                     Formatter.number("price", buyPrice),
                     Formatter.number("each", eachPrice)
@@ -217,7 +217,7 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
 
         @Override
         public Component sellPrice(int quantity, double sellPrice, double eachPrice) {
-            return MiniMessage.miniMessage().deserialize(this.sellPrice,
+            return this.sellPrice.render(
                     Formatter.number("quantity", quantity),
                     Formatter.number("price", sellPrice),
                     Formatter.number("each", eachPrice)
@@ -228,11 +228,11 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
     @ConfigSerializable
     final static class BukkitCreate implements Create {
 
-        private String title;
+        private MessageTemplate title;
 
         @Override
         public Component title() {
-            return MiniMessage.miniMessage().deserialize(this.title);
+            return this.title.render();
         }
     }
 
@@ -244,17 +244,17 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
         @ConfigSerializable
         final static class BukkitConfirm implements Confirm {
 
-            private String title;
-            private String description;
+            private MessageTemplate title;
+            private MessageTemplate description;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component description() {
-                return MiniMessage.miniMessage().deserialize(this.description);
+                return this.description.render();
             }
 
         }
@@ -262,21 +262,21 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
         @ConfigSerializable
         final static class BukkitCancel implements Cancel {
 
-            private String title;
+            private MessageTemplate title;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
         }
 
-        private String title;
+        private MessageTemplate title;
         private BukkitConfirm confirm;
         private BukkitCancel cancel;
 
         @Override
         public Component title() {
-            return MiniMessage.miniMessage().deserialize(this.title);
+            return this.title.render();
         }
 
     }
@@ -289,169 +289,169 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
         @ConfigSerializable
         final static class BukkitBuy implements Buy {
 
-            private String title;
-            private String amount;
-            private String quantity;
+            private MessageTemplate title;
+            private MessageTemplate amount;
+            private MessageTemplate quantity;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component amount(final double amount) {
-                return MiniMessage.miniMessage().deserialize(this.amount, Formatter.number("amount", amount));
+                return this.amount.render(Formatter.number("amount", amount));
             }
 
             @Override
             public Component quantity(final int quantity) {
-                return MiniMessage.miniMessage().deserialize(this.quantity, Formatter.number("quantity", quantity));
+                return this.quantity.render(Formatter.number("quantity", quantity));
             }
         }
 
         @ConfigSerializable
         final static class BukkitSell implements Sell {
 
-            private String title;
-            private String amount;
-            private String quantity;
+            private MessageTemplate title;
+            private MessageTemplate amount;
+            private MessageTemplate quantity;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component amount(final double amount) {
-                return MiniMessage.miniMessage().deserialize(this.amount, Formatter.number("amount", amount));
+                return this.amount.render(Formatter.number("amount", amount));
             }
 
             @Override
             public Component quantity(final int quantity) {
-                return MiniMessage.miniMessage().deserialize(this.quantity, Formatter.number("quantity", quantity));
+                return this.quantity.render(Formatter.number("quantity", quantity));
             }
         }
 
         @ConfigSerializable
         final static class BukkitDeposit implements Deposit {
 
-            private String title;
-            private String amount;
+            private MessageTemplate title;
+            private MessageTemplate amount;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component amount(final int amount) {
-                return MiniMessage.miniMessage().deserialize(this.amount, Formatter.number("amount", amount));
+                return this.amount.render(Formatter.number("amount", amount));
             }
         }
 
         @ConfigSerializable
         final static class BukkitWithdraw implements Withdraw {
 
-            private String title;
-            private String amount;
+            private MessageTemplate title;
+            private MessageTemplate amount;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component amount(final int amount) {
-                return MiniMessage.miniMessage().deserialize(this.amount, Formatter.number("amount", amount));
+                return this.amount.render(Formatter.number("amount", amount));
             }
         }
 
         @ConfigSerializable
         final static class BukkitLocationChanged implements LocationChanged {
 
-            private String title;
-            private String x;
-            private String y;
-            private String z;
-            private String world;
+            private MessageTemplate title;
+            private MessageTemplate x;
+            private MessageTemplate y;
+            private MessageTemplate z;
+            private MessageTemplate world;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component x(final int x) {
-                return MiniMessage.miniMessage().deserialize(this.x, Formatter.number("x", x));
+                return this.x.render(Formatter.number("x", x));
             }
 
             @Override
             public Component y(final int y) {
-                return MiniMessage.miniMessage().deserialize(this.y, Formatter.number("y", y));
+                return this.y.render(Formatter.number("y", y));
             }
 
             @Override
             public Component z(final int z) {
-                return MiniMessage.miniMessage().deserialize(this.z, Formatter.number("z", z));
+                return this.z.render(Formatter.number("z", z));
             }
 
             @Override
             public Component world(final String world) {
-                return MiniMessage.miniMessage().deserialize(this.world, Placeholder.unparsed("world", world));
+                return this.world.render(Placeholder.unparsed("world", world));
             }
         }
 
         @ConfigSerializable
         final static class BukkitInventoryLinkChanged implements InventoryLinkChanged {
 
-            private String title;
-            private String x;
-            private String y;
-            private String z;
-            private String world;
-            private String removed;
+            private MessageTemplate title;
+            private MessageTemplate x;
+            private MessageTemplate y;
+            private MessageTemplate z;
+            private MessageTemplate world;
+            private MessageTemplate removed;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component x(final int x) {
-                return MiniMessage.miniMessage().deserialize(this.x, Formatter.number("x", x));
+                return this.x.render(Formatter.number("x", x));
             }
 
             @Override
             public Component y(final int y) {
-                return MiniMessage.miniMessage().deserialize(this.y, Formatter.number("y", y));
+                return this.y.render(Formatter.number("y", y));
             }
 
             @Override
             public Component z(final int z) {
-                return MiniMessage.miniMessage().deserialize(this.z, Formatter.number("z", z));
+                return this.z.render(Formatter.number("z", z));
             }
 
             @Override
             public Component world(final String world) {
-                return MiniMessage.miniMessage().deserialize(this.world, Placeholder.unparsed("world", world));
+                return this.world.render(Placeholder.unparsed("world", world));
             }
 
             @Override
             public Component removed() {
-                return MiniMessage.miniMessage().deserialize(this.removed);
+                return this.removed.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitBuyPriceChanged implements BuyPriceChanged {
 
-            private String title;
-            private String from;
-            private String to;
+            private MessageTemplate title;
+            private MessageTemplate from;
+            private MessageTemplate to;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
@@ -459,27 +459,27 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
                 if (amount == null)
                     amount = -1D;
 
-                return MiniMessage.miniMessage().deserialize(this.from, Formatter.number("amount", amount));
+                return this.from.render(Formatter.number("amount", amount));
             }
 
             @Override
             public Component to(Double amount) {
                 if (amount == null)
                     amount = -1D;
-                return MiniMessage.miniMessage().deserialize(this.to, Formatter.number("amount", amount));
+                return this.to.render(Formatter.number("amount", amount));
             }
         }
 
         @ConfigSerializable
         final static class BukkitSellPriceChanged implements SellPriceChanged {
 
-            private String title;
-            private String from;
-            private String to;
+            private MessageTemplate title;
+            private MessageTemplate from;
+            private MessageTemplate to;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
@@ -487,7 +487,7 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
                 if (amount == null)
                     amount = -1D;
 
-                return MiniMessage.miniMessage().deserialize(this.from, Formatter.number("amount", amount));
+                return this.from.render(Formatter.number("amount", amount));
             }
 
             @Override
@@ -495,87 +495,123 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
                 if (amount == null)
                     amount = -1D;
 
-                return MiniMessage.miniMessage().deserialize(this.to, Formatter.number("amount", amount));
+                return this.to.render(Formatter.number("amount", amount));
             }
         }
 
         @ConfigSerializable
         final static class BukkitQuantityChanged implements QuantityChanged {
 
-            private String title;
-            private String from;
-            private String to;
+            private MessageTemplate title;
+            private MessageTemplate from;
+            private MessageTemplate to;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component from(final int amount) {
-                return MiniMessage.miniMessage().deserialize(this.from, Formatter.number("amount", amount));
+                return this.from.render(Formatter.number("amount", amount));
             }
 
             @Override
             public Component to(final int amount) {
-                return MiniMessage.miniMessage().deserialize(this.to, Formatter.number("amount", amount));
+                return this.to.render(Formatter.number("amount", amount));
             }
         }
 
         @ConfigSerializable
         final static class BukkitNoteChanged implements NoteChanged {
 
-            private String title;
-            private String from;
-            private String to;
+            private MessageTemplate title;
+            private MessageTemplate from;
+            private MessageTemplate to;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component from(final String note) {
-                return MiniMessage.miniMessage().deserialize(this.from, Placeholder.unparsed("note", note));
+                return this.from.render(Placeholder.unparsed("note", note));
             }
 
             @Override
             public Component to(final String note) {
-                return MiniMessage.miniMessage().deserialize(this.to, Placeholder.unparsed("note", note));
+                return this.to.render(Placeholder.unparsed("note", note));
             }
         }
 
         @ConfigSerializable
         final static class BukkitNameChanged implements NameChanged {
 
-            private String title;
-            private String from;
-            private String to;
+            private MessageTemplate title;
+            private MessageTemplate from;
+            private MessageTemplate to;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component from(final String name) {
-                return MiniMessage.miniMessage().deserialize(this.from, Placeholder.unparsed("name", name));
+                return this.from.render(Placeholder.unparsed("name", name));
             }
 
             @Override
             public Component to(final String name) {
-                return MiniMessage.miniMessage().deserialize(this.to, Placeholder.unparsed("name", name));
+                return this.to.render(Placeholder.unparsed("name", name));
             }
         }
 
         @ConfigSerializable
         final static class BukkitShopDestroyed implements ShopDestroyed {
 
-            private String title;
+            private MessageTemplate title;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
+            }
+        }
+
+        //NOTE: Defaults, because message files written by older versions do not have this section.
+        @ConfigSerializable
+        final static class BukkitRollup implements Rollup {
+
+            private MessageTemplate title = MessageTemplate.of("<action> <gray>(daily total)</gray>");
+            private MessageTemplate count = MessageTemplate.of("<dark_purple>Logs: <count></dark_purple>");
+            private MessageTemplate amount = MessageTemplate.of("<dark_purple>Price: $<amount:'#.##'></dark_purple>");
+            private MessageTemplate quantity = MessageTemplate.of("<dark_purple>Quantity: <quantity></dark_purple>");
+            private MessageTemplate day = MessageTemplate.of("<dark_purple>Date: <day:'yyyy-MM-dd'></dark_purple>");
+
+            @Override
+            public Component title(final Component action) {
+                return this.title.render(Placeholder.component("action", action));
+            }
+
+            @Override
+            public Component count(final int count) {
+                return this.count.render(Formatter.number("count", count));
+            }
+
+            @Override
+            public Component amount(final double amount) {
+                return this.amount.render(Formatter.number("amount", amount));
+            }
+
+            @Override
+            public Component quantity(final long quantity) {
+                return this.quantity.render(Formatter.number("quantity", quantity));
+            }
+
+            @Override
+            public Component day(final LocalDate day) {
+                return this.day.render(Formatter.date("day", day));
             }
         }
 
@@ -591,24 +627,25 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
         private BukkitNoteChanged noteChanged;
         private BukkitNameChanged nameChanged;
         private BukkitShopDestroyed shopDestroyed;
+        private BukkitRollup rollup = new BukkitRollup();
 
-        private String title;
-        private String player;
-        private String date;
+        private MessageTemplate title;
+        private MessageTemplate player;
+        private MessageTemplate date;
 
         @Override
         public Component title() {
-            return MiniMessage.miniMessage().deserialize(this.title);
+            return this.title.render();
         }
 
         @Override
         public Component player(final Component displayName) {
-            return MiniMessage.miniMessage().deserialize(this.player, Placeholder.component("player", displayName));
+            return this.player.render(Placeholder.component("player", displayName));
         }
 
         @Override
         public Component date(final Date date) {
-            return MiniMessage.miniMessage().deserialize(this.date, Formatter.date("created_on", date.toInstant()));
+            return this.date.render(Formatter.date("created_on", date.toInstant()));
         }
     }
 
@@ -620,17 +657,17 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
         @ConfigSerializable
         final static class BukkitNote implements Note {
 
-            private String title;
-            private String request;
+            private MessageTemplate title;
+            private MessageTemplate request;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component request() {
-                return MiniMessage.miniMessage().deserialize(this.request);
+                return this.request.render();
             }
 
         }
@@ -638,116 +675,116 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
         @ConfigSerializable
         final static class BukkitBuy implements Buy {
 
-            private String title;
-            private String amount;
-            private String notForSale;
-            private String request;
+            private MessageTemplate title;
+            private MessageTemplate amount;
+            private MessageTemplate notForSale;
+            private MessageTemplate request;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component amount(final double amount) {
-                return MiniMessage.miniMessage().deserialize(this.amount, Formatter.number("amount", amount));
+                return this.amount.render(Formatter.number("amount", amount));
             }
 
             @Override
             public Component notForSale() {
-                return MiniMessage.miniMessage().deserialize(this.notForSale);
+                return this.notForSale.render();
             }
 
             @Override
             public Component request() {
-                return MiniMessage.miniMessage().deserialize(this.request);
+                return this.request.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitSell implements Sell {
 
-            private String title;
-            private String amount;
-            private String notBuying;
-            private String request;
+            private MessageTemplate title;
+            private MessageTemplate amount;
+            private MessageTemplate notBuying;
+            private MessageTemplate request;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component amount(final double amount) {
-                return MiniMessage.miniMessage().deserialize(this.amount, Formatter.number("amount", amount));
+                return this.amount.render(Formatter.number("amount", amount));
             }
 
             @Override
             public Component notBuying() {
-                return MiniMessage.miniMessage().deserialize(this.notBuying);
+                return this.notBuying.render();
             }
 
             @Override
             public Component request() {
-                return MiniMessage.miniMessage().deserialize(this.request);
+                return this.request.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitQuantity implements Quantity {
 
-            private String title;
-            private String amount;
-            private String description;
-            private String request;
-            private String minMax;
+            private MessageTemplate title;
+            private MessageTemplate amount;
+            private MessageTemplate description;
+            private MessageTemplate request;
+            private MessageTemplate minMax;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component amount(final int quantity) {
-                return MiniMessage.miniMessage().deserialize(this.amount, Formatter.number("quantity", quantity));
+                return this.amount.render(Formatter.number("quantity", quantity));
             }
 
             @Override
             public Component description() {
-                return MiniMessage.miniMessage().deserialize(this.description);
+                return this.description.render();
             }
 
             @Override
             public Component request() {
-                return MiniMessage.miniMessage().deserialize(this.request);
+                return this.request.render();
             }
 
             @Override
             public Component minMax(final int max) {
-                return MiniMessage.miniMessage().deserialize(this.minMax, Formatter.number("max", max));
+                return this.minMax.render(Formatter.number("max", max));
             }
         }
 
         @ConfigSerializable
         final static class BukkitConfirm implements Confirm {
 
-            private String title;
-            private String description;
-            private String location;
+            private MessageTemplate title;
+            private MessageTemplate description;
+            private MessageTemplate location;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component description() {
-                return MiniMessage.miniMessage().deserialize(this.description);
+                return this.description.render();
             }
 
             @Override
             public Component location(final String world, final int x, final int y, final int z) {
-                return MiniMessage.miniMessage().deserialize(this.location,
+                return this.location.render(
                         Placeholder.unparsed("world", world),
                         Formatter.number("x", x),
                         Formatter.number("y", y),
@@ -759,29 +796,29 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
         @ConfigSerializable
         final static class BukkitCancel implements Cancel {
 
-            private String title;
+            private MessageTemplate title;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitMove implements Move {
 
-            private String title;
-            private String location;
-            private String message;
+            private MessageTemplate title;
+            private MessageTemplate location;
+            private MessageTemplate message;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component location(final int x, final int y, final int z, final String world) {
-                return MiniMessage.miniMessage().deserialize(this.location,
+                return this.location.render(
                         Formatter.number("x", x),
                         Formatter.number("y", y),
                         Formatter.number("z", z),
@@ -790,15 +827,15 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
 
             @Override
             public Component message() {
-                return MiniMessage.miniMessage().deserialize(this.message);
+                return this.message.render();
             }
         }
 
-        private String title;
-        private String clickToSet;
-        private String invalidNumber;
-        private String decimalPlaces;
-        private String minimumPrice;
+        private MessageTemplate title;
+        private MessageTemplate clickToSet;
+        private MessageTemplate invalidNumber;
+        private MessageTemplate decimalPlaces;
+        private MessageTemplate minimumPrice;
         private BukkitNote note;
         private BukkitBuy buy;
         private BukkitSell sell;
@@ -809,27 +846,27 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
 
         @Override
         public Component title() {
-            return MiniMessage.miniMessage().deserialize(this.title);
+            return this.title.render();
         }
 
         @Override
         public Component clickToSet() {
-            return MiniMessage.miniMessage().deserialize(this.clickToSet);
+            return this.clickToSet.render();
         }
 
         @Override
         public Component invalidNumber() {
-            return MiniMessage.miniMessage().deserialize(this.invalidNumber);
+            return this.invalidNumber.render();
         }
 
         @Override
         public Component decimalPlaces() {
-            return MiniMessage.miniMessage().deserialize(this.decimalPlaces);
+            return this.decimalPlaces.render();
         }
 
         @Override
         public Component minimumPrice() {
-            return MiniMessage.miniMessage().deserialize(this.minimumPrice);
+            return this.minimumPrice.render();
         }
     }
 
@@ -841,74 +878,74 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
         @ConfigSerializable
         final static class BukkitDeposit implements Deposit {
 
-            private String title;
-            private String bulk;
-            private String insufficientStock;
+            private MessageTemplate title;
+            private MessageTemplate bulk;
+            private MessageTemplate insufficientStock;
 
             @Override
             public Component title(final Component displayName) {
-                return MiniMessage.miniMessage().deserialize(this.title, Placeholder.component("item", displayName));
+                return this.title.render(Placeholder.component("item", displayName));
             }
 
             @Override
             public Component bulk() {
-                return MiniMessage.miniMessage().deserialize(this.bulk);
+                return this.bulk.render();
             }
 
             @Override
             public Component insufficientStock() {
-                return MiniMessage.miniMessage().deserialize(this.insufficientStock);
+                return this.insufficientStock.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitWithdraw implements Withdraw {
 
-            private String title;
-            private String bulk;
-            private String insufficientStock;
+            private MessageTemplate title;
+            private MessageTemplate bulk;
+            private MessageTemplate insufficientStock;
 
             @Override
             public Component title(final Component displayName) {
-                return MiniMessage.miniMessage().deserialize(this.title, Placeholder.component("item", displayName));
+                return this.title.render(Placeholder.component("item", displayName));
             }
 
             @Override
             public Component bulk() {
-                return MiniMessage.miniMessage().deserialize(this.bulk);
+                return this.bulk.render();
             }
 
             @Override
             public Component insufficientStock() {
-                return MiniMessage.miniMessage().deserialize(this.insufficientStock);
+                return this.insufficientStock.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitChangeRate implements ChangeRate {
 
-            private String title;
-            private String amount;
+            private MessageTemplate title;
+            private MessageTemplate amount;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component amount(final int amount) {
-                return MiniMessage.miniMessage().deserialize(this.amount, Formatter.number("amount", amount));
+                return this.amount.render(Formatter.number("amount", amount));
             }
         }
 
         @ConfigSerializable
         final static class BukkitLogs implements Logs {
 
-            private String title;
+            private MessageTemplate title;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
         }
 
@@ -920,67 +957,67 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
             @ConfigSerializable
             final static class BukkitCancel implements Cancel {
 
-                private String title;
-                private String message;
+                private MessageTemplate title;
+                private MessageTemplate message;
 
                 @Override
                 public Component title() {
-                    return MiniMessage.miniMessage().deserialize(this.title);
+                    return this.title.render();
                 }
 
                 @Override
                 public Component message() {
-                    return MiniMessage.miniMessage().deserialize(this.message);
+                    return this.message.render();
                 }
 
             }
 
-            private String title;
-            private String description;
-            private String message;
+            private MessageTemplate title;
+            private MessageTemplate description;
+            private MessageTemplate message;
             private BukkitCancel cancel;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
 
             @Override
             public Component description() {
-                return MiniMessage.miniMessage().deserialize(this.description);
+                return this.description.render();
             }
 
             @Override
             public Component message() {
-                return MiniMessage.miniMessage().deserialize(this.message);
+                return this.message.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitModify implements Modify {
 
-            private String title;
+            private MessageTemplate title;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitCustomer implements Customer {
 
-            private String title;
+            private MessageTemplate title;
 
             @Override
             public Component title() {
-                return MiniMessage.miniMessage().deserialize(this.title);
+                return this.title.render();
             }
         }
 
-        private String title;
-        private String stock;
-        private String stacks;
+        private MessageTemplate title;
+        private MessageTemplate stock;
+        private MessageTemplate stacks;
         private BukkitDeposit deposit;
         private BukkitWithdraw withdraw;
         private BukkitChangeRate changeRate;
@@ -991,70 +1028,70 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
 
         @Override
         public Component title() {
-            return MiniMessage.miniMessage().deserialize(this.title);
+            return this.title.render();
         }
 
         @Override
         public Component stock(final int stock) {
-            return MiniMessage.miniMessage().deserialize(this.stock, Formatter.number("stock", stock));
+            return this.stock.render(Formatter.number("stock", stock));
         }
 
         @Override
         public Component stacks(final int stacks) {
-            return MiniMessage.miniMessage().deserialize(this.stacks, Formatter.number("stacks", stacks));
+            return this.stacks.render(Formatter.number("stacks", stacks));
         }
     }
 
     @ConfigSerializable
     final static class BukkitRestore implements Restore {
 
-        private String title;
-        private String message;
-        private String buyPrice;
-        private String sellPrice;
-        private String quantity;
-        private String stock;
-        private String note;
-        private String owners;
+        private MessageTemplate title;
+        private MessageTemplate message;
+        private MessageTemplate buyPrice;
+        private MessageTemplate sellPrice;
+        private MessageTemplate quantity;
+        private MessageTemplate stock;
+        private MessageTemplate note;
+        private MessageTemplate owners;
 
         @Override
         public Component title() {
-            return MiniMessage.miniMessage().deserialize(this.title);
+            return this.title.render();
         }
 
         @Override
         public Component message() {
-            return MiniMessage.miniMessage().deserialize(this.message);
+            return this.message.render();
         }
 
         @Override
         public Component buyPrice(final double price) {
-            return MiniMessage.miniMessage().deserialize(this.buyPrice, Formatter.number("price", price));
+            return this.buyPrice.render(Formatter.number("price", price));
         }
 
         @Override
         public Component sellPrice(final double price) {
-            return MiniMessage.miniMessage().deserialize(this.sellPrice, Formatter.number("price", price));
+            return this.sellPrice.render(Formatter.number("price", price));
         }
 
         @Override
         public Component quantity(final int quantity) {
-            return MiniMessage.miniMessage().deserialize(this.quantity, Formatter.number("quantity", quantity));
+            return this.quantity.render(Formatter.number("quantity", quantity));
         }
 
         @Override
         public Component stock(final int stock) {
-            return MiniMessage.miniMessage().deserialize(this.stock, Formatter.number("stock", stock));
+            return this.stock.render(Formatter.number("stock", stock));
         }
 
         @Override
         public Component note(final String note) {
-            return MiniMessage.miniMessage().deserialize(this.note, Placeholder.unparsed("note", note));
+            return this.note.render(Placeholder.unparsed("note", note));
         }
 
         @Override
         public Component owners(final String[] owners) {
-            return MiniMessage.miniMessage().deserialize(this.owners, Placeholder.unparsed("owners", String.join(", ", owners)));
+            return this.owners.render(Placeholder.unparsed("owners", String.join(", ", owners)));
         }
     }
 
@@ -1066,39 +1103,39 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
         @ConfigSerializable
         final static class BukkitReload implements Reload {
 
-            private String message;
+            private MessageTemplate message;
 
             @Override
             public Component message() {
-                return MiniMessage.miniMessage().deserialize(this.message);
+                return this.message.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitAdmin implements Admin {
 
-            private String enabled;
-            private String disabled;
+            private MessageTemplate enabled;
+            private MessageTemplate disabled;
 
             @Override
             public Component enabled() {
-                return MiniMessage.miniMessage().deserialize(this.enabled);
+                return this.enabled.render();
             }
 
             @Override
             public Component disabled() {
-                return MiniMessage.miniMessage().deserialize(this.disabled);
+                return this.disabled.render();
             }
         }
 
         @ConfigSerializable
         final static class BukkitImporter implements Importer {
 
-            private String message;
+            private MessageTemplate message;
 
             @Override
             public Component message() {
-                return MiniMessage.miniMessage().deserialize(this.message);
+                return this.message.render();
             }
         }
 
@@ -1111,35 +1148,43 @@ public final class BukkitSlabbyMessages implements SlabbyMessages {
     @ConfigSerializable
     final static class BukkitGeneral implements General {
 
-        private String nextPage;
-        private String previousPage;
-        private String noInventorySpace;
-        private String unrecoverableException;
-        private String shopOutOfSpace;
+        private MessageTemplate nextPage;
+        private MessageTemplate previousPage;
+        private MessageTemplate noInventorySpace;
+        private MessageTemplate unrecoverableException;
+        private MessageTemplate shopOutOfSpace;
+
+        //NOTE: Default, because message files written by older versions do not have it.
+        private MessageTemplate offerChanged = MessageTemplate.of("<red>This shop was changed in the meantime, please try again</red>");
 
         @Override
         public Component nextPage() {
-            return MiniMessage.miniMessage().deserialize(this.nextPage);
+            return this.nextPage.render();
         }
 
         @Override
         public Component previousPage() {
-            return MiniMessage.miniMessage().deserialize(this.previousPage);
+            return this.previousPage.render();
         }
 
         @Override
         public Component noInventorySpace() {
-            return MiniMessage.miniMessage().deserialize(this.noInventorySpace);
+            return this.noInventorySpace.render();
         }
 
         @Override
         public Component unrecoverableException() {
-            return MiniMessage.miniMessage().deserialize(this.unrecoverableException);
+            return this.unrecoverableException.render();
         }
 
         @Override
         public Component shopOutOfSpace() {
-            return MiniMessage.miniMessage().deserialize(this.shopOutOfSpace);
+            return this.shopOutOfSpace.render();
+        }
+
+        @Override
+        public Component offerChanged() {
+            return this.offerChanged.render();
         }
     }
 
@@ -0,0 +1,203 @@
+package com.valesmp.slabby.config;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+import net.kyori.adventure.text.minimessage.Context;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.ParsingException;
+import net.kyori.adventure.text.minimessage.tag.Tag;
+import net.kyori.adventure.text.minimessage.tag.resolver.ArgumentQueue;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import net.kyori.adventure.text.minimessage.tag.standard.StandardTags;
+import org.spongepowered.configurate.ConfigurationNode;
+import org.spongepowered.configurate.serialize.SerializationException;
+import org.spongepowered.configurate.serialize.TypeSerializer;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * A MiniMessage template that is parsed once, when the messages are loaded. Every tag that is not a standard tag is a
+ * placeholder slot, which is left in the parsed component as a marker. Rendering only resolves the slots and swaps them
+ * in, the rest of the template is never parsed again. Templates with slots inside tags that split their text into one
+ * component per character are the exception, they are parsed in full on every render.
+ */
+public final class MessageTemplate {
+
+    //NOTE: Private use characters, they never show up in a template by accident.
+    private static final char SLOT_START = '\uE000';
+    private static final char SLOT_END = '\uE001';
+
+    private static final Pattern SLOT = Pattern.compile(SLOT_START + "(\\d+)" + SLOT_END);
+
+    private static final TagResolver STANDARD = StandardTags.defaults();
+
+    //NOTE: These tags style every character on its own, which breaks a marker apart so it can no longer be found.
+    private static final Set<String> SPLITTING = Set.of("gradient", "rainbow", "transition", "pride");
+
+    private final String source;
+
+    private final Component compiled;
+
+    private final Slot[] slots;
+
+    private final boolean parsedOnRender;
+
+    private MessageTemplate(final String source, final Component compiled, final Slot[] slots, final boolean parsedOnRender) {
+        this.source = source;
+        this.compiled = compiled;
+        this.slots = slots;
+        this.parsedOnRender = parsedOnRender;
+    }
+
+    /**
+     * Parses the template. Standard tags with invalid arguments are reported to the consumer, and are kept as text, just
+     * like MiniMessage does when rendering.
+     */
+    public static MessageTemplate compile(final String source, final Consumer<String> errors) {
+        final var slots = new ArrayList<Slot>();
+        final var splitting = new AtomicBoolean();
+
+        final var parser = MiniMessage.builder()
+                .tags(TagResolver.resolver(new Checked(errors, splitting), new Slots(slots)))
+                .build();
+
+        final var compiled = parser.deserialize(source);
+
+        //NOTE: Without slots there is no marker that could be split, so the parsed component can still be used as is.
+        return new MessageTemplate(source, compiled, slots.toArray(Slot[]::new), splitting.get() && !slots.isEmpty());
+    }
+
+    /**
+     * Parses a template that is known to be valid, such as a built-in default.
+     */
+    public static MessageTemplate of(final String source) {
+        return compile(source, error -> {});
+    }
+
+    public String source() {
+        return this.source;
+    }
+
+    public Component render(final TagResolver... resolvers) {
+        if (this.slots.length == 0)
+            return this.compiled;
+
+        if (this.parsedOnRender)
+            return MiniMessage.miniMessage().deserialize(this.source, resolvers);
+
+        final var resolver = TagResolver.resolver(resolvers);
+        final var values = new Component[this.slots.length];
+
+        for (var i = 0; i < this.slots.length; i++) {
+            final var slot = this.slots[i];
+
+            //NOTE: A slot without a value stays as it was written, which is what MiniMessage does with unknown tags.
+            values[i] = resolver.has(slot.name())
+                    ? MiniMessage.miniMessage().deserialize(slot.tag(), resolver)
+                    : Component.text(slot.tag());
+        }
+
+        return this.compiled.replaceText(TextReplacementConfig.builder()
+                .match(SLOT)
+                .replacement((match, builder) -> values[Integer.parseInt(match.group(1))])
+                .build());
+    }
+
+    @Override
+    public String toString() {
+        return this.source;
+    }
+
+    private record Slot(String name, String tag) {}
+
+    /**
+     * Standard tags, reporting the ones that cannot be parsed, and noting the use of tags that split their text.
+     */
+    private record Checked(Consumer<String> errors, AtomicBoolean splitting) implements TagResolver {
+
+        @Override
+        public Tag resolve(final String name, final ArgumentQueue arguments, final Context ctx) throws ParsingException {
+            if (SPLITTING.contains(name))
+                this.splitting.set(true);
+
+            try {
+                return STANDARD.resolve(name, arguments, ctx);
+            } catch (final ParsingException e) {
+                this.errors.accept("<%s>: %s".formatted(name, e.getMessage()));
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean has(final String name) {
+            return STANDARD.has(name);
+        }
+
+    }
+
+    /**
+     * Every other tag, turned into a marker. The tag is written back with its arguments, so it can be resolved on its own.
+     */
+    private record Slots(List<Slot> slots) implements TagResolver {
+
+        @Override
+        public Tag resolve(final String name, final ArgumentQueue arguments, final Context ctx) {
+            //NOTE: Also asked for standard tags the standard resolver rejected, those have to stay text.
+            if (STANDARD.has(name))
+                return null;
+
+            final var tag = new StringBuilder("<").append(name);
+
+            while (arguments.hasNext())
+                tag.append(":'").append(arguments.pop().value().replace("\\", "\\\\").replace("'", "\\'")).append('\'');
+
+            tag.append('>');
+
+            this.slots.add(new Slot(name, tag.toString()));
+
+            return Tag.selfClosingInserting(Component.text(SLOT_START + Integer.toString(this.slots.size() - 1) + SLOT_END));
+        }
+
+        @Override
+        public boolean has(final String name) {
+            return !STANDARD.has(name);
+        }
+
+    }
+
+    /**
+     * Compiles templates while the messages are loaded. Errors are passed on with the path of the message.
+     */
+    public static final class Serializer implements TypeSerializer<MessageTemplate> {
+
+        private final BiConsumer<String, String> errors;
+
+        public Serializer(final BiConsumer<String, String> errors) {
+            this.errors = errors;
+        }
+
+        @Override
+        public MessageTemplate deserialize(final Type type, final ConfigurationNode node) throws SerializationException {
+            final var source = node.getString();
+
+            if (source == null)
+                return null;
+
+            return compile(source, error -> this.errors.accept(node.path().toString(), error));
+        }
+
+        @Override
+        public void serialize(final Type type, final MessageTemplate template, final ConfigurationNode node) throws SerializationException {
+            node.set(template == null ? null : template.source());
+        }
+
+    }
+
+}
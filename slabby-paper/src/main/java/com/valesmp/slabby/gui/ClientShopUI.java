@@ -2,6 +2,7 @@ package com.valesmp.slabby.gui;
 
 import com.valesmp.slabby.SlabbyAPI;
 import com.valesmp.slabby.shop.Shop;
+import com.valesmp.slabby.shop.ShopOwner;
 import lombok.experimental.UtilityClass;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -18,11 +19,17 @@ import xyz.xenondevs.invui.window.Window;
 import static com.valesmp.slabby.gui.GuiHelper.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
 
 @UtilityClass
 public final class ClientShopUI {
 
     public void open(final SlabbyAPI api, final Player client, final Shop shop) {
+        openWhenLoaded(api, client, owners(api, shop), owners -> open(api, client, shop, owners));
+    }
+
+    private void open(final SlabbyAPI api, final Player client, final Shop shop, final Collection<ShopOwner> owners) {
         final var item = api.serialization().<ItemStack>deserialize(shop.item());
         final var uniqueId = client.getUniqueId();
 
@@ -32,7 +39,9 @@ public final class ClientShopUI {
         final var gui = Gui.empty(9, 1);
 
         if (shop.buyPrice() != null) {
-            gui.setItem(0, 0, new SuppliedItem(itemStack(Material.GOLD_INGOT, (it, meta) -> {
+            final var buy = new AtomicReference<SuppliedItem>();
+
+            buy.set(new SuppliedItem(itemStack(Material.GOLD_INGOT, (it, meta) -> {
                 meta.displayName(api.messages().client().buy().title(item.displayName(), shop.quantity()));
                 meta.lore(new ArrayList<>() {{
                     add(api.messages().client().buy().price(shop.buyPrice()));
@@ -41,11 +50,21 @@ public final class ClientShopUI {
                         add(api.messages().client().buy().stacks(shop.stock() / item.getMaxStackSize()));
                     }
                 }});
-            }), c -> api.exceptionService().tryCatch(client.getUniqueId(), () -> api.operations().buy(client.getUniqueId(), shop))));
+            }), c -> {
+                //NOTE: Shift-click buys as much as the client can afford, falling back to one lot to report why none fit.
+                final var lots = c.getClickType().isShiftClick() ? Math.max(1, api.operations().maxBuyLots(uniqueId, shop)) : 1;
+
+                trade(api, client, () -> api.operations().buy(uniqueId, shop, lots), () -> buy.get().notifyWindows());
+                return false;
+            }));
+
+            gui.setItem(0, 0, buy.get());
         }
 
         if (shop.sellPrice() != null) {
-            gui.setItem(1, 0, new SuppliedItem(itemStack(Material.IRON_INGOT, (it, meta) -> {
+            final var sell = new AtomicReference<SuppliedItem>();
+
+            sell.set(new SuppliedItem(itemStack(Material.IRON_INGOT, (it, meta) -> {
                 meta.displayName(api.messages().client().sell().title(item.displayName(), shop.quantity()));
                 meta.lore(new ArrayList<>() {{
                     add(api.messages().client().sell().price(shop.sellPrice()));
@@ -54,7 +73,14 @@ public final class ClientShopUI {
                         add(api.messages().client().sell().stacks(shop.stock() / item.getMaxStackSize()));
                     }
                 }});
-            }), c -> api.exceptionService().tryCatch(uniqueId, () -> api.operations().sell(client.getUniqueId(), shop))));
+            }), c -> {
+                final var lots = c.getClickType().isShiftClick() ? Math.max(1, api.operations().maxSellLots(uniqueId, shop)) : 1;
+
+                trade(api, client, () -> api.operations().sell(uniqueId, shop, lots), () -> sell.get().notifyWindows());
+                return false;
+            }));
+
+            gui.setItem(1, 0, sell.get());
         }
 
         gui.setItem(4, 0, new SimpleItem(item));
@@ -73,7 +99,7 @@ public final class ClientShopUI {
             }});
         })));
 
-        gui.setItem(8, 0, commandBlock(api, shop, item));
+        gui.setItem(8, 0, commandBlock(api, shop, owners, item));
 
         final var window = Window.single()
                 .setViewer(client)
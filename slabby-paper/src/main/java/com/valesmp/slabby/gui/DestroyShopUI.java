@@ -2,6 +2,7 @@ package com.valesmp.slabby.gui;
 
 import com.valesmp.slabby.SlabbyAPI;
 import com.valesmp.slabby.shop.Shop;
+import com.valesmp.slabby.shop.ShopOwner;
 import com.valesmp.slabby.wrapper.sound.Sounds;
 import lombok.experimental.UtilityClass;
 import org.bukkit.Material;
@@ -15,11 +16,16 @@ import xyz.xenondevs.invui.window.Window;
 import static com.valesmp.slabby.gui.GuiHelper.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 
 @UtilityClass
 public final class DestroyShopUI {
 
     public void open(final SlabbyAPI api, final Player shopOwner, final Shop shop) {
+        openWhenLoaded(api, shopOwner, owners(api, shop), owners -> open(api, shopOwner, shop, owners));
+    }
+
+    private void open(final SlabbyAPI api, final Player shopOwner, final Shop shop, final Collection<ShopOwner> owners) {
         final var itemStack = api.serialization().<ItemStack>deserialize(shop.item());
         final var uniqueId = shopOwner.getUniqueId();
 
@@ -35,7 +41,7 @@ public final class DestroyShopUI {
             gui.closeForAllViewers();
         })));
 
-        gui.setItem(4, 0, commandBlock(api, shop, itemStack));
+        gui.setItem(4, 0, commandBlock(api, shop, owners, itemStack));
 
         gui.setItem(5, 0, new SimpleItem(itemStack(Material.BARRIER, (it, meta) -> {
             meta.displayName(api.messages().destroy().cancel().title());
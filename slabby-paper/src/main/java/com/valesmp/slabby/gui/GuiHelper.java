@@ -1,17 +1,27 @@
 package com.valesmp.slabby.gui;
 
 import com.valesmp.slabby.SlabbyAPI;
+import com.valesmp.slabby.exception.SlabbyException;
+import com.valesmp.slabby.exception.UnrecoverableException;
+import com.valesmp.slabby.service.PlayerNameService;
 import com.valesmp.slabby.shop.Shop;
+import com.valesmp.slabby.shop.ShopOwner;
 import lombok.experimental.UtilityClass;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import xyz.xenondevs.invui.item.ItemProvider;
-import xyz.xenondevs.invui.item.impl.SimpleItem;
+import xyz.xenondevs.invui.item.impl.SuppliedItem;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 @UtilityClass
@@ -32,15 +42,104 @@ public final class GuiHelper {
         };
     }
 
-    public SimpleItem commandBlock(final SlabbyAPI api, final Shop shop, final ItemStack itemStack) {
-        return new SimpleItem(itemStack(Material.COMMAND_BLOCK, (it, meta) -> {
+    /**
+     * Opens a window once its data has been loaded off the main thread. Nothing is opened when the viewer left in the meantime.
+     */
+    public <T> void openWhenLoaded(final SlabbyAPI api, final Player viewer, final CompletableFuture<T> data, final Consumer<T> open) {
+        data.<Void>handleAsync((it, e) -> {
+            if (e != null)
+                report(api, viewer, e, "Error while loading data for a shop window");
+            else if (viewer.isOnline())
+                open.accept(it);
+
+            return null;
+        }, api.asyncRepository().mainThread()).exceptionally(e -> {
+            api.exceptionService().logToConsole("Error while opening a shop window", e);
+            return null;
+        });
+    }
+
+    /**
+     * Loads the owners of a shop off the main thread, and resolves their names on the same thread.
+     */
+    public CompletableFuture<Collection<ShopOwner>> owners(final SlabbyAPI api, final Shop shop) {
+        return api.asyncRepository().supply(() -> {
+            final Collection<ShopOwner> owners = new ArrayList<>(shop.owners());
+
+            api.names().warm(owners.stream().map(ShopOwner::uniqueId).toList());
+
+            return owners;
+        });
+    }
+
+    /**
+     * Names of the players as far as they are cached. Missing names are shown as a placeholder and resolved in the
+     * background, once they are all known the callback runs on the main thread, so the item can be drawn again.
+     */
+    public String[] names(final SlabbyAPI api, final Collection<UUID> uniqueIds, final Runnable resolved) {
+        final var names = new String[uniqueIds.size()];
+        final var pending = new ArrayList<CompletableFuture<String>>();
+
+        var i = 0;
+
+        for (final var uniqueId : uniqueIds) {
+            final var name = api.names().cached(uniqueId);
+
+            if (name == null)
+                pending.add(api.names().resolve(uniqueId));
+
+            names[i++] = name != null ? name : PlayerNameService.PLACEHOLDER;
+        }
+
+        if (!pending.isEmpty())
+            api.asyncRepository().thenOnMainThread(CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)), ignored -> resolved.run());
+
+        return names;
+    }
+
+    /**
+     * Runs a trade off the main thread, shops are locked while they are changed. Errors are reported to the player once
+     * back on the main thread, after which the callback runs either way, so the item can be drawn again.
+     */
+    public void trade(final SlabbyAPI api, final Player player, final Runnable trade, final Runnable done) {
+        api.asyncRepository().supply(() -> {
+            trade.run();
+            return null;
+        }).whenCompleteAsync((ignored, e) -> {
+            if (e != null)
+                report(api, player, e, "Error while trading with a shop");
+
+            done.run();
+        }, api.asyncRepository().mainThread());
+    }
+
+    /**
+     * Reports the error of a task that ran off the main thread, such as a full async queue. Shop errors are shown to the
+     * player like they are for work on the main thread, anything else is only logged. Has to run on the main thread.
+     */
+    private void report(final SlabbyAPI api, final Player player, final Throwable error, final String message) {
+        final var cause = error instanceof CompletionException ? error.getCause() : error;
+
+        if (cause instanceof SlabbyException exception) {
+            if (player.isOnline())
+                api.exceptionService().logToPlayer(player.getUniqueId(), exception);
+
+            if (exception instanceof UnrecoverableException)
+                api.exceptionService().logToConsole("UnrecoverableException", exception);
+        } else {
+            api.exceptionService().logToConsole(message, cause);
+        }
+    }
+
+    public SuppliedItem commandBlock(final SlabbyAPI api, final Shop shop, final Collection<ShopOwner> shopOwners, final ItemStack itemStack) {
+        final var uniqueIds = shopOwners.stream().map(ShopOwner::uniqueId).toList();
+        final var item = new AtomicReference<SuppliedItem>();
+
+        item.set(new SuppliedItem(itemStack(Material.COMMAND_BLOCK, (it, meta) -> {
             meta.displayName(api.messages().commandBlock().title());
 
-            final var owners = shop.owners()
-                    .stream()
-                    //TODO: use player display name
-                    .map(o -> Bukkit.getOfflinePlayer(o.uniqueId()).getName())
-                    .toArray(String[]::new);
+            //TODO: use player display name
+            final var owners = names(api, uniqueIds, () -> item.get().notifyWindows());
 
             meta.lore(new ArrayList<>() {{
                 add(api.messages().commandBlock().owners(owners));
@@ -56,7 +155,9 @@ public final class GuiHelper {
                     add(api.messages().commandBlock().sellPrice(shop.quantity(), shop.sellPrice(), sellPriceEach));
                 }
             }});
-        }).get());
+        }), c -> false));
+
+        return item.get();
     }
 
 }
@@ -1,14 +1,14 @@
 package com.valesmp.slabby.gui;
 
 import com.valesmp.slabby.SlabbyAPI;
-import com.valesmp.slabby.audit.Auditable;
 import com.valesmp.slabby.shop.Shop;
+import com.valesmp.slabby.shop.ShopLog;
+import com.valesmp.slabby.shop.ShopLogRollup;
 import com.valesmp.slabby.shop.log.LocationChanged;
 import com.valesmp.slabby.shop.log.Transaction;
 import com.valesmp.slabby.shop.log.ValueChanged;
 import lombok.experimental.UtilityClass;
 import net.kyori.adventure.text.Component;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -19,132 +19,47 @@ import xyz.xenondevs.invui.item.Item;
 import xyz.xenondevs.invui.item.ItemProvider;
 import xyz.xenondevs.invui.item.builder.ItemBuilder;
 import xyz.xenondevs.invui.item.impl.SimpleItem;
+import xyz.xenondevs.invui.item.impl.SuppliedItem;
 import xyz.xenondevs.invui.item.impl.controlitem.PageItem;
 import xyz.xenondevs.invui.window.Window;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 @UtilityClass
 public final class LogShopUI {
 
     //TODO: category menu
 
-    public void open(final SlabbyAPI api, final Player shopOwner, final Shop shop) {
-        final var items = shop.logs().stream().sorted(Comparator.comparing(Auditable::createdOn, Comparator.reverseOrder())).map(it -> {
-            final var item = new ItemStack(Material.PAPER);
-            final var meta = item.getItemMeta();
-
-            meta.lore(new ArrayList<>() {{
-                //TODO: use display name
-                final var player = Bukkit.getOfflinePlayer(it.uniqueId());
-                add(api.messages().log().player(Component.text(player.getName())));
-
-                switch (it.action()) {
-                    case BUY -> {
-                        meta.displayName(api.messages().log().buy().title());
-
-                        final var data = api.fromJson(it.data(), Transaction.class);
-
-                        add(api.messages().log().buy().amount(data.amount()));
-                        add(api.messages().log().buy().quantity(data.quantity()));
-                    }
-                    case SELL -> {
-                        meta.displayName(api.messages().log().sell().title());
-
-                        final var data = api.fromJson(it.data(), Transaction.class);
-
-                        add(api.messages().log().sell().amount(data.amount()));
-                        add(api.messages().log().sell().quantity(data.quantity()));
-                    }
-                    case DEPOSIT -> {
-                        meta.displayName(api.messages().log().deposit().title());
-                        final var data = api.fromJson(it.data(), ValueChanged.Int.class);
-                        final var deposited = data.to() - data.from();
-                        add(api.messages().log().deposit().amount(deposited));
-                    }
-                    case WITHDRAW -> {
-                        meta.displayName(api.messages().log().withdraw().title());
-                        final var data = api.fromJson(it.data(), ValueChanged.Int.class);
-                        final var deposited = data.from() - data.to();
-                        add(api.messages().log().withdraw().amount(deposited));
-                    }
-                    case INVENTORY_LINK_CHANGED -> {
-                        meta.displayName(api.messages().log().inventoryLinkChanged().title());
-
-                        final var data = api.fromJson(it.data(), LocationChanged.class);
-
-                        if (data.isRemoved()) {
-                            add(api.messages().log().inventoryLinkChanged().removed());
-                        } else {
-                            add(api.messages().log().inventoryLinkChanged().x(data.x()));
-                            add(api.messages().log().inventoryLinkChanged().y(data.y()));
-                            add(api.messages().log().inventoryLinkChanged().z(data.z()));
-                            add(api.messages().log().inventoryLinkChanged().world(data.world()));
-                        }
-                    }
-                    case LOCATION_CHANGED -> {
-                        meta.displayName(api.messages().log().locationChanged().title());
-
-                        final var data = api.fromJson(it.data(), LocationChanged.class);
+    private static final int PAGE_SIZE = 45;
 
-                        add(api.messages().log().locationChanged().x(data.x()));
-                        add(api.messages().log().locationChanged().y(data.y()));
-                        add(api.messages().log().locationChanged().z(data.z()));
-                        add(api.messages().log().locationChanged().world(data.world()));
-                    }
-                    case NAME_CHANGED -> {
-                        meta.displayName(api.messages().log().nameChanged().title());
-
-                        final var data = (ValueChanged.String) api.fromJson(it.data(), it.action().dataClass());
-
-                        add(api.messages().log().nameChanged().from(data.from()));
-                        add(api.messages().log().nameChanged().to(data.to()));
-                    }
-                    case NOTE_CHANGED -> {
-                        meta.displayName(api.messages().log().noteChanged().title());
-
-                        final var data = (ValueChanged.String) api.fromJson(it.data(), it.action().dataClass());
-
-                        add(api.messages().log().noteChanged().from(data.from()));
-                        add(api.messages().log().noteChanged().to(data.to()));
-                    }
-                    case QUANTITY_CHANGED -> {
-                        meta.displayName(api.messages().log().quantityChanged().title());
-
-                        final var data = (ValueChanged.Int) api.fromJson(it.data(), it.action().dataClass());
-
-                        add(api.messages().log().quantityChanged().from(data.from()));
-                        add(api.messages().log().quantityChanged().to(data.to()));
-                    }
-                    case SELL_PRICE_CHANGED -> {
-                        meta.displayName(api.messages().log().sellPriceChanged().title());
-
-                        final var data = (ValueChanged.Double) api.fromJson(it.data(), it.action().dataClass());
+    public void open(final SlabbyAPI api, final Player shopOwner, final Shop shop) {
+        //NOTE: The first two pages are loaded up front, so the next page is always ready when the owner turns to it.
+        GuiHelper.openWhenLoaded(api, shopOwner, logs(api, shop, null, PAGE_SIZE * 2), logs -> open(api, shopOwner, shop, logs));
+    }
 
-                        add(api.messages().log().sellPriceChanged().from(data.from()));
-                        add(api.messages().log().sellPriceChanged().to(data.to()));
-                    }
-                    case BUY_PRICE_CHANGED -> {
-                        meta.displayName(api.messages().log().buyPriceChanged().title());
+    /**
+     * Loads a page of logs off the main thread, and resolves the names of their players on the same thread.
+     */
+    private CompletableFuture<List<ShopLog>> logs(final SlabbyAPI api, final Shop shop, final ShopLog after, final int limit) {
+        final var async = api.asyncRepository();
 
-                        final var data = (ValueChanged.Double) api.fromJson(it.data(), it.action().dataClass());
+        return async.supply(() -> {
+            final var logs = async.blocking().logs(shop, after, limit);
 
-                        add(api.messages().log().buyPriceChanged().from(data.from()));
-                        add(api.messages().log().buyPriceChanged().to(data.to()));
-                    }
-                    case SHOP_DESTROYED -> {
-                        meta.displayName(api.messages().log().shopDestroyed().title());
-                    }
-                }
+            api.names().warm(logs.stream().map(ShopLog::uniqueId).filter(Objects::nonNull).distinct().toList());
 
-                add(api.messages().log().date(it.createdOn()));
-            }});
+            return logs;
+        });
+    }
 
-            item.setItemMeta(meta);
+    private void open(final SlabbyAPI api, final Player shopOwner, final Shop shop, final List<ShopLog> logs) {
+        final var pages = new LogPages(api, shop);
 
-            return (Item) new SimpleItem(item);
-        }).toList();
+        pages.append(logs, PAGE_SIZE * 2);
 
         final var gui = PagedGui.items()
                 .setStructure(
@@ -167,9 +82,16 @@ public final class LogShopUI {
                         return new ItemBuilder(Material.RED_STAINED_GLASS_PANE).setDisplayName(new AdventureComponentWrapper(api.messages().general().nextPage()));
                     }
                 })
-                .setContent(items)
+                .setContent(pages.items())
                 .build();
 
+        pages.gui(gui);
+
+        gui.addPageChangeHandler((previous, current) -> pages.prefetch(current));
+
+        //NOTE: A shop with few recent logs goes on with the daily totals right away.
+        pages.prefetch(0);
+
         final var window = Window.single()
                 .setViewer(shopOwner)
                 .setTitle(new AdventureComponentWrapper(api.messages().log().title()))
@@ -179,4 +101,241 @@ public final class LogShopUI {
         window.open();
     }
 
+    private Item render(final SlabbyAPI api, final ShopLog it) {
+        final var item = new AtomicReference<SuppliedItem>();
+
+        //NOTE: Drawn again once a player name that was not cached is resolved.
+        item.set(new SuppliedItem(() -> s -> stack(api, it, () -> item.get().notifyWindows()), c -> false));
+
+        return item.get();
+    }
+
+    private ItemStack stack(final SlabbyAPI api, final ShopLog it, final Runnable resolved) {
+        final var item = new ItemStack(Material.PAPER);
+        final var meta = item.getItemMeta();
+
+        meta.lore(new ArrayList<>() {{
+            //NOTE: Logs without a player come from hoppers restocking a linked inventory.
+            if (it.uniqueId() != null) {
+                //TODO: use display name
+                final var name = GuiHelper.names(api, List.of(it.uniqueId()), resolved)[0];
+                add(api.messages().log().player(Component.text(name)));
+            }
+
+            switch (it.action()) {
+                case BUY -> {
+                    meta.displayName(api.messages().log().buy().title());
+
+                    final var data = it.<Transaction>decode();
+
+                    add(api.messages().log().buy().amount(data.amount()));
+                    add(api.messages().log().buy().quantity(data.quantity()));
+                }
+                case SELL -> {
+                    meta.displayName(api.messages().log().sell().title());
+
+                    final var data = it.<Transaction>decode();
+
+                    add(api.messages().log().sell().amount(data.amount()));
+                    add(api.messages().log().sell().quantity(data.quantity()));
+                }
+                case DEPOSIT -> {
+                    meta.displayName(api.messages().log().deposit().title());
+                    final var data = it.<ValueChanged.Int>decode();
+                    final var deposited = data.to() - data.from();
+                    add(api.messages().log().deposit().amount(deposited));
+                }
+                case WITHDRAW -> {
+                    meta.displayName(api.messages().log().withdraw().title());
+                    final var data = it.<ValueChanged.Int>decode();
+                    final var deposited = data.from() - data.to();
+                    add(api.messages().log().withdraw().amount(deposited));
+                }
+                case INVENTORY_LINK_CHANGED -> {
+                    meta.displayName(api.messages().log().inventoryLinkChanged().title());
+
+                    final var data = it.<LocationChanged>decode();
+
+                    if (data.isRemoved()) {
+                        add(api.messages().log().inventoryLinkChanged().removed());
+                    } else {
+                        add(api.messages().log().inventoryLinkChanged().x(data.x()));
+                        add(api.messages().log().inventoryLinkChanged().y(data.y()));
+                        add(api.messages().log().inventoryLinkChanged().z(data.z()));
+                        add(api.messages().log().inventoryLinkChanged().world(data.world()));
+                    }
+                }
+                case LOCATION_CHANGED -> {
+                    meta.displayName(api.messages().log().locationChanged().title());
+
+                    final var data = it.<LocationChanged>decode();
+
+                    add(api.messages().log().locationChanged().x(data.x()));
+                    add(api.messages().log().locationChanged().y(data.y()));
+                    add(api.messages().log().locationChanged().z(data.z()));
+                    add(api.messages().log().locationChanged().world(data.world()));
+                }
+                case NAME_CHANGED -> {
+                    meta.displayName(api.messages().log().nameChanged().title());
+
+                    final var data = it.<ValueChanged.String>decode();
+
+                    add(api.messages().log().nameChanged().from(data.from()));
+                    add(api.messages().log().nameChanged().to(data.to()));
+                }
+                case NOTE_CHANGED -> {
+                    meta.displayName(api.messages().log().noteChanged().title());
+
+                    final var data = it.<ValueChanged.String>decode();
+
+                    add(api.messages().log().noteChanged().from(data.from()));
+                    add(api.messages().log().noteChanged().to(data.to()));
+                }
+                case QUANTITY_CHANGED -> {
+                    meta.displayName(api.messages().log().quantityChanged().title());
+
+                    final var data = it.<ValueChanged.Int>decode();
+
+                    add(api.messages().log().quantityChanged().from(data.from()));
+                    add(api.messages().log().quantityChanged().to(data.to()));
+                }
+                case SELL_PRICE_CHANGED -> {
+                    meta.displayName(api.messages().log().sellPriceChanged().title());
+
+                    final var data = it.<ValueChanged.Double>decode();
+
+                    add(api.messages().log().sellPriceChanged().from(data.from()));
+                    add(api.messages().log().sellPriceChanged().to(data.to()));
+                }
+                case BUY_PRICE_CHANGED -> {
+                    meta.displayName(api.messages().log().buyPriceChanged().title());
+
+                    final var data = it.<ValueChanged.Double>decode();
+
+                    add(api.messages().log().buyPriceChanged().from(data.from()));
+                    add(api.messages().log().buyPriceChanged().to(data.to()));
+                }
+                case SHOP_DESTROYED -> {
+                    meta.displayName(api.messages().log().shopDestroyed().title());
+                }
+            }
+
+            add(api.messages().log().date(it.createdOn()));
+        }});
+
+        item.setItemMeta(meta);
+
+        return item;
+    }
+
+    private Item render(final SlabbyAPI api, final ShopLogRollup it) {
+        final var item = new ItemStack(Material.BOOK);
+        final var meta = item.getItemMeta();
+
+        final var title = switch (it.action()) {
+            case BUY -> api.messages().log().buy().title();
+            case SELL -> api.messages().log().sell().title();
+            case DEPOSIT -> api.messages().log().deposit().title();
+            case WITHDRAW -> api.messages().log().withdraw().title();
+            default -> Component.text(it.action().name());
+        };
+
+        meta.displayName(api.messages().log().rollup().title(title));
+
+        meta.lore(new ArrayList<>() {{
+            if (it.action() == ShopLog.Action.BUY || it.action() == ShopLog.Action.SELL)
+                add(api.messages().log().rollup().amount(it.amount()));
+
+            add(api.messages().log().rollup().quantity(it.quantity()));
+            add(api.messages().log().rollup().count(it.count()));
+            add(api.messages().log().rollup().day(it.day()));
+        }});
+
+        item.setItemMeta(meta);
+
+        return new SimpleItem(item);
+    }
+
+    /**
+     * The logs loaded so far, rendered once. The next page is fetched in the background as soon as the owner reaches the
+     * last loaded page. Once the logs run out, the daily totals of expired logs follow. Only used from the main thread.
+     */
+    private static final class LogPages {
+
+        private final SlabbyAPI api;
+
+        private final Shop shop;
+
+        private final List<Item> items = new ArrayList<>();
+
+        private PagedGui<Item> gui;
+
+        private ShopLog last;
+
+        private boolean exhausted;
+
+        private ShopLogRollup lastRollup;
+
+        private boolean rollupsExhausted;
+
+        private boolean loading;
+
+        private LogPages(final SlabbyAPI api, final Shop shop) {
+            this.api = api;
+            this.shop = shop;
+        }
+
+        private List<Item> items() {
+            return this.items;
+        }
+
+        private void gui(final PagedGui<Item> gui) {
+            this.gui = gui;
+        }
+
+        private void append(final List<ShopLog> logs, final int requested) {
+            logs.forEach(it -> this.items.add(render(this.api, it)));
+
+            if (!logs.isEmpty())
+                this.last = logs.get(logs.size() - 1);
+
+            this.exhausted = logs.size() < requested;
+        }
+
+        private void appendRollups(final List<ShopLogRollup> rollups, final int requested) {
+            rollups.forEach(it -> this.items.add(render(this.api, it)));
+
+            if (!rollups.isEmpty())
+                this.lastRollup = rollups.get(rollups.size() - 1);
+
+            this.rollupsExhausted = rollups.size() < requested;
+        }
+
+        private void prefetch(final int page) {
+            if (this.rollupsExhausted || this.loading || (page + 2) * PAGE_SIZE <= this.items.size())
+                return;
+
+            //NOTE: Stays set when loading fails, so a broken page is not requested again on every page change.
+            this.loading = true;
+
+            final var async = this.api.asyncRepository();
+
+            final var loaded = this.exhausted
+                    ? async.thenOnMainThread(async.rollups(this.shop, this.lastRollup, PAGE_SIZE), rollups -> appendRollups(rollups, PAGE_SIZE))
+                    : async.thenOnMainThread(logs(this.api, this.shop, this.last, PAGE_SIZE), logs -> append(logs, PAGE_SIZE));
+
+            loaded.thenRun(() -> {
+                this.gui.setContent(this.items);
+                this.loading = false;
+
+                //NOTE: The last page of logs may not fill the page on its own.
+                prefetch(page);
+            }).exceptionally(e -> {
+                this.api.exceptionService().logToConsole("Error while loading shop logs", e);
+                return null;
+            });
+        }
+
+    }
+
 }
@@ -8,6 +8,7 @@ import com.valesmp.slabby.exception.ShopOutOfStockException;
 import com.valesmp.slabby.helper.ItemHelper;
 import com.valesmp.slabby.permission.SlabbyPermissions;
 import com.valesmp.slabby.shop.Shop;
+import com.valesmp.slabby.shop.ShopOwner;
 import com.valesmp.slabby.shop.ShopWizard;
 import com.valesmp.slabby.wrapper.sound.Sounds;
 import lombok.experimental.UtilityClass;
@@ -24,11 +25,16 @@ import xyz.xenondevs.invui.window.Window;
 import static com.valesmp.slabby.gui.GuiHelper.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 
 @UtilityClass
 public final class OwnerShopUI {
 
     public void open(final SlabbyAPI api, final Player shopOwner, final Shop shop) {
+        openWhenLoaded(api, shopOwner, owners(api, shop), owners -> open(api, shopOwner, shop, owners));
+    }
+
+    private void open(final SlabbyAPI api, final Player shopOwner, final Shop shop, final Collection<ShopOwner> owners) {
         final var item = api.serialization().<ItemStack>deserialize(shop.item());
         final var uniqueId = shopOwner.getUniqueId();
 
@@ -155,7 +161,7 @@ public final class OwnerShopUI {
             }));
         });
 
-        gui.setItem(6, 0, commandBlock(api, shop, item));
+        gui.setItem(6, 0, commandBlock(api, shop, owners, item));
 
         gui.setItem(7, 0, new SimpleItem(itemStack(Material.COMPARATOR, (it, meta) -> {
             meta.displayName(api.messages().owner().modify().title());
@@ -5,7 +5,6 @@ import com.valesmp.slabby.audit.Auditable;
 import com.valesmp.slabby.shop.Shop;
 import com.valesmp.slabby.shop.ShopWizard;
 import lombok.experimental.UtilityClass;
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryCloseEvent;
@@ -22,27 +21,41 @@ import xyz.xenondevs.invui.window.Window;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
 
 @UtilityClass
 public final class RestoreShopUI {
 
     public void open(final SlabbyAPI api, final Player viewer, final UUID uniqueId) {
-        final var deletedShops = api.repository()
+        final var async = api.asyncRepository();
+
+        //NOTE: The owners are resolved to names on the same thread, so building the window never touches the database.
+        final var deletedShops = async.supply(() -> async.blocking()
                 .shopsOf(uniqueId, Shop.State.DELETED)
                 .stream()
                 .sorted(Comparator.comparing(Auditable::createdOn, Comparator.reverseOrder()))
-                .map(it -> {
+                .map(it -> new DeletedShop(it, it.shares()
+                        .uniqueIds()
+                        .stream()
+                        .map(i -> api.names().name(i))
+                        .toArray(String[]::new)))
+                .toList());
+
+        GuiHelper.openWhenLoaded(api, viewer, deletedShops, shops -> open(api, viewer, shops));
+    }
+
+    private void open(final SlabbyAPI api, final Player viewer, final List<DeletedShop> shops) {
+        final var deletedShops = shops
+                .stream()
+                .map(deleted -> {
+                    final var it = deleted.shop();
+                    final var owners = deleted.owners();
                     final var item = api.serialization().<ItemStack>deserialize(it.item());
 
                     if (item.getMaxStackSize() != 1)
                         item.setAmount(Math.max(1, Math.min(it.quantity(), item.getMaxStackSize())));
 
-                    final var owners = it.owners()
-                            .stream()
-                            .map(i -> Bukkit.getOfflinePlayer(i.uniqueId()).getName())
-                            .toArray(String[]::new);
-
                     item.lore(new ArrayList<>() {{
                         if (it.buyPrice() != null)
                             add(api.messages().restore().buyPrice(it.buyPrice()));
@@ -105,4 +118,6 @@ public final class RestoreShopUI {
         window.open();
     }
 
+    private record DeletedShop(Shop shop, String[] owners) {}
+
 }
@@ -43,11 +43,12 @@ public final class SlabboImporter implements Importer {
 
                     final var owner = api.repository()
                             .<ShopOwner.Builder>builder(ShopOwner.Builder.class)
+                            .shop(shop)
                             .uniqueId(oldShop.uniqueId())
                             .share(100)
                             .build();
 
-                    shop.owners().add(owner);
+                    api.repository().createOrUpdate(owner);
 
                     api.operations().removeAndSpawnDisplayItem(null, null, null, null, shop);
 
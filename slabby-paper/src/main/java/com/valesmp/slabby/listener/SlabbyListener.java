@@ -7,6 +7,8 @@ import com.valesmp.slabby.gui.*;
 import com.valesmp.slabby.helper.BlockHelper;
 import com.valesmp.slabby.helper.ItemHelper;
 import com.valesmp.slabby.permission.SlabbyPermissions;
+import com.valesmp.slabby.shop.LedgerSettlement;
+import com.valesmp.slabby.shop.RestockAccumulator;
 import com.valesmp.slabby.shop.Shop;
 import com.valesmp.slabby.shop.ShopWizard;
 import com.valesmp.slabby.wrapper.sound.Sounds;
@@ -25,11 +27,13 @@ import org.bukkit.event.inventory.*;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -38,6 +42,11 @@ public final class SlabbyListener implements Listener {
 
     private final SlabbyAPI api;
 
+    private final RestockAccumulator restockAccumulator;
+
+    //NOTE: Only present when settlement is enabled.
+    private final LedgerSettlement settlement;
+
     @EventHandler(priority = EventPriority.HIGHEST)
     private void onPlayerInteract(final PlayerInteractEvent event) {
         api.permission().ifPermission(event.getPlayer().getUniqueId(), SlabbyPermissions.SHOP_INTERACT, () -> handlePlayerInteract(event));
@@ -242,9 +251,18 @@ public final class SlabbyListener implements Listener {
         });
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPlayerJoin(final PlayerJoinEvent event) {
+        api.names().remember(event.getPlayer().getUniqueId(), event.getPlayer().getName());
+
+        if (this.settlement != null)
+            this.settlement.settle(event.getPlayer().getUniqueId());
+    }
+
     @EventHandler(priority = EventPriority.HIGHEST)
     private void onPlayerQuit(final PlayerQuitEvent event) {
         api.operations().wizards().remove(event.getPlayer().getUniqueId());
+        api.names().remember(event.getPlayer().getUniqueId(), event.getPlayer().getName());
     }
 
     private double getAndCheckPrice(final double price) {
@@ -273,10 +291,16 @@ public final class SlabbyListener implements Listener {
         if (location == null || destination.getType() != InventoryType.CHEST)
             return;
 
+        final var world = location.getWorld().getName();
+
+        //NOTE: Most hopper transfers go into chests far away from any shop, those never leave memory.
+        if (!api.repository().hasShopsInChunk(location.getBlockX() >> 4, location.getBlockZ() >> 4, world))
+            return;
+
         Optional<Shop> shopOpt = Optional.empty();
 
         try {
-            shopOpt = api.repository().shopWithInventoryAt(location.getBlockX(), location.getBlockY(), location.getBlockZ(), location.getWorld().getName());
+            shopOpt = api.repository().shopWithInventoryAt(location.getBlockX(), location.getBlockY(), location.getBlockZ(), world);
         } catch (final SlabbyException e) {
             api.exceptionService().logToConsole("Error while attempting to get shop for linked inventory", e);
         }
@@ -295,25 +319,13 @@ public final class SlabbyListener implements Listener {
                 itemStack.setAmount(amount - 1);
 
                 if (destination.containsAtLeast(itemStack, itemStack.getAmount())) {
-                    shop.stock(shop.stock() + amount);
-
-                    try {
-                        api.repository().update(shop);
-                        event.setItem(ItemStack.empty());
-                        destination.remove(itemStack);
-                    } catch (final SlabbyException e) {
-                        api.exceptionService().logToConsole("Error while attempting to update shop from linked inventory", e);
-                    }
-                }
-            } else {
-                shop.stock(shop.stock() + event.getItem().getAmount());
-
-                try {
-                    api.repository().update(shop);
+                    restockAccumulator.add(shop, amount, location, itemStack);
                     event.setItem(ItemStack.empty());
-                } catch (final SlabbyException e) {
-                    api.exceptionService().logToConsole("Error while attempting to update shop from linked inventory", e);
+                    destination.remove(itemStack);
                 }
+            } else {
+                restockAccumulator.add(shop, event.getItem().getAmount(), location, itemStack);
+                event.setItem(ItemStack.empty());
             }
         });
     }
@@ -362,6 +374,9 @@ public final class SlabbyListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGHEST)
     private void onBlockExplode(final BlockExplodeEvent event) {
+        if (!hasShopChunk(event.blockList()))
+            return;
+
         event.blockList().removeIf(block -> {
             final var x = block.getX();
             final var y = block.getY();
@@ -374,6 +389,9 @@ public final class SlabbyListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGHEST)
     private void onEntityExplode(final EntityExplodeEvent event) {
+        if (!hasShopChunk(event.blockList()))
+            return;
+
         event.blockList().removeIf(block -> {
             final var x = block.getX();
             final var y = block.getY();
@@ -386,7 +404,7 @@ public final class SlabbyListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGHEST)
     private void onBlockPistonExtend(final BlockPistonExtendEvent event) {
-        if (event.getBlocks().stream().anyMatch(block -> {
+        if (hasShopChunk(event.getBlocks()) && event.getBlocks().stream().anyMatch(block -> {
             final var x = block.getX();
             final var y = block.getY();
             final var z = block.getZ();
@@ -400,7 +418,7 @@ public final class SlabbyListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGHEST)
     private void onBlockPistonRetract(final BlockPistonRetractEvent event) {
-        if (event.getBlocks().stream().anyMatch(block -> {
+        if (hasShopChunk(event.getBlocks()) && event.getBlocks().stream().anyMatch(block -> {
             final var x = block.getX();
             final var y = block.getY();
             final var z = block.getZ();
@@ -412,6 +430,31 @@ public final class SlabbyListener implements Listener {
         }
     }
 
+    private boolean hasShopChunk(final List<Block> blocks) {
+        String lastWorld = null;
+        var lastChunkX = 0;
+        var lastChunkZ = 0;
+
+        //NOTE: Explosions and pistons tend to hit the same chunk many times in a row, so only changes of chunk are checked.
+        for (final var block : blocks) {
+            final var chunkX = block.getX() >> 4;
+            final var chunkZ = block.getZ() >> 4;
+            final var world = block.getWorld().getName();
+
+            if (chunkX == lastChunkX && chunkZ == lastChunkZ && world.equals(lastWorld))
+                continue;
+
+            if (api.repository().hasShopsInChunk(chunkX, chunkZ, world))
+                return true;
+
+            lastWorld = world;
+            lastChunkX = chunkX;
+            lastChunkZ = chunkZ;
+        }
+
+        return false;
+    }
+
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerDropItem(final PlayerDropItemEvent event) {
         if (!ItemHelper.isRestrictedItem(event.getItemDrop().getItemStack()))
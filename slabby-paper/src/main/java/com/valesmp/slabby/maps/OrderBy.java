@@ -9,22 +9,26 @@ import java.util.function.Predicate;
 @Getter
 public enum OrderBy implements Comparator<Shop>, Predicate<Shop> {
 
-    BuyAscending(Comparator.comparingDouble(it -> it.buyPrice() / it.quantity()), it ->
+    BuyAscending(Shop.Side.BUY, true, Comparator.comparingDouble(it -> it.buyPrice() / it.quantity()), it ->
             it.buyPrice() != null && it.hasStock(it.quantity())),
 
-    BuyDescending(Comparator.<Shop>comparingDouble(it -> it.buyPrice() / it.quantity()).reversed(), it ->
+    BuyDescending(Shop.Side.BUY, false, Comparator.<Shop>comparingDouble(it -> it.buyPrice() / it.quantity()).reversed(), it ->
             it.buyPrice() != null && it.hasStock(it.quantity())),
 
-    SellAscending(Comparator.comparingDouble(it -> it.sellPrice() / it.quantity()), it ->
+    SellAscending(Shop.Side.SELL, true, Comparator.comparingDouble(it -> it.sellPrice() / it.quantity()), it ->
             it.sellPrice() != -1 && it.quantity() > 0),
 
-    SellDescending(Comparator.<Shop>comparingDouble(it -> it.sellPrice() / it.quantity()).reversed(), it ->
+    SellDescending(Shop.Side.SELL, false, Comparator.<Shop>comparingDouble(it -> it.sellPrice() / it.quantity()).reversed(), it ->
             it.sellPrice() != -1 && it.quantity() > 0);
 
+    private final Shop.Side side;
+    private final boolean ascending;
     private final Comparator<Shop> comparator;
     private final Predicate<Shop> filter;
 
-    OrderBy(final Comparator<Shop> comparator, final Predicate<Shop> filter) {
+    OrderBy(final Shop.Side side, final boolean ascending, final Comparator<Shop> comparator, final Predicate<Shop> filter) {
+        this.side = side;
+        this.ascending = ascending;
         this.comparator = comparator;
         this.filter = filter;
     }
@@ -37,6 +37,7 @@ public final class BukkitExceptionService implements ExceptionService {
             case PlayerOutOfInventorySpaceException ignored -> api.messages().general().noInventorySpace();
             case UnrecoverableException ignored -> api.messages().general().unrecoverableException();
             case ShopOutOfSpaceException ignored -> api.messages().general().shopOutOfSpace();
+            case StaleShopException ignored -> api.messages().general().offerChanged();
             //NOTE: A SlabbyException is never thrown on its own, so technically this won't ever happen, but I have to put it here to satisfy the compiler
             case SlabbyException ignored -> api.messages().general().unrecoverableException();
         });
@@ -0,0 +1,87 @@
+package com.valesmp.slabby.service;
+
+import com.valesmp.slabby.SlabbyAPI;
+import org.bukkit.Bukkit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class BukkitPlayerNameService implements PlayerNameService {
+
+    private static final int CAPACITY = 4096;
+
+    private final SlabbyAPI api;
+
+    private final Map<UUID, String> names = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<UUID, String> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    //NOTE: A name that is requested again while it is being resolved shares the lookup in progress.
+    private final Map<UUID, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+    public BukkitPlayerNameService(final SlabbyAPI api) {
+        this.api = api;
+    }
+
+    @Override
+    public String cached(final UUID uniqueId) {
+        synchronized (this.names) {
+            return this.names.get(uniqueId);
+        }
+    }
+
+    @Override
+    public String name(final UUID uniqueId) {
+        final var cached = cached(uniqueId);
+
+        if (cached != null)
+            return cached;
+
+        final var name = Bukkit.getOfflinePlayer(uniqueId).getName();
+        final var result = name != null ? name : uniqueId.toString();
+
+        remember(uniqueId, result);
+
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<String> resolve(final UUID uniqueId) {
+        final var cached = cached(uniqueId);
+
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached);
+
+        final var future = new CompletableFuture<String>();
+        final var existing = this.pending.putIfAbsent(uniqueId, future);
+
+        if (existing != null)
+            return existing;
+
+        //NOTE: The lookup fails right away when the async queue is full, so it is started outside of the map.
+        this.api.asyncRepository().supply(() -> name(uniqueId)).whenComplete((name, e) -> {
+            this.pending.remove(uniqueId, future);
+
+            if (e != null)
+                future.completeExceptionally(e);
+            else
+                future.complete(name);
+        });
+
+        return future;
+    }
+
+    @Override
+    public void remember(final UUID uniqueId, final String name) {
+        synchronized (this.names) {
+            this.names.put(uniqueId, name);
+        }
+    }
+
+}
@@ -21,15 +21,27 @@ import org.bukkit.inventory.meta.BlockStateMeta;
 import org.bukkit.util.NumberConversions;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor
 @Accessors(fluent = true, chain = false)
 public final class BukkitShopOperations implements ShopOperations {
 
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final int LOCK_STRIPES = 64;
+
+    //NOTE: Long enough for a lag spike, a trade whose main thread work did not start by then is failed instead.
+    private static final int MAIN_THREAD_TIMEOUT_SECONDS = 30;
+
     @Getter
-    private final Map<UUID, ShopWizard> wizards = new HashMap<>();
+    private final Map<UUID, ShopWizard> wizards = new ConcurrentHashMap<>();
+
+    private final ShopLocks locks = new ShopLocks(LOCK_STRIPES);
 
     private final SlabbyAPI api;
 
@@ -63,77 +75,258 @@ public final class BukkitShopOperations implements ShopOperations {
 
     @Override
     public Map<UUID, Double> splitCost(final double amount, final Shop shop) {
-        final var result = new HashMap<UUID, Double>();
+        return shop.shares().split(amount);
+    }
+
+    /**
+     * Applies a change to the shop and writes it together with the log it returns. Shops are not reloaded before a trade,
+     * so when the write finds the shop changed in the meantime, the shop has been reloaded and the change is validated
+     * and applied again. A change that returns no log has nothing to write.
+     * Changes to the same shop are serialized, so this can be called from any thread.
+     */
+    void commit(final Shop shop, final Supplier<ShopLog> change) throws SlabbyException {
+        commit(shop, Map.of(), change);
+    }
+
+    /**
+     * Same as {@link #commit(Shop, Supplier)}, and books the amounts on the owner ledger with the change.
+     */
+    void commit(final Shop shop, final Map<UUID, Double> ledger, final Supplier<ShopLog> change) throws SlabbyException {
+        //NOTE: Never wait for the main thread while holding the lock, the main thread may be waiting for it.
+        final var lock = this.locks.of(shop);
+
+        lock.lock();
+
+        try {
+            for (var attempt = 1; ; attempt++) {
+                //NOTE: The shop is the cached instance, a change that is not written must not stay behind in it.
+                final var stock = shop.stock();
+
+                final ShopLog log;
+
+                try {
+                    log = change.get();
+                } catch (final RuntimeException e) {
+                    shop.stock(stock);
+                    throw e;
+                }
+
+                if (log == null)
+                    return;
+
+                try {
+                    api.repository().update(shop, log, ledger);
+                    return;
+                } catch (final StaleShopException e) {
+                    //NOTE: The repository already reloaded the shop, so there is nothing to restore.
+                    if (attempt == MAX_ATTEMPTS)
+                        throw e;
+                } catch (final RuntimeException e) {
+                    shop.stock(stock);
+                    throw e;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs a change to the shop that is not a trade while holding its lock, so it never interleaves with a trade on another
+     * thread. The lock is taken before any transaction is started, in the same order as {@link #commit}.
+     */
+    private void locked(final Shop shop, final Runnable change) {
+        final var lock = this.locks.of(shop);
+
+        lock.lock();
+
+        try {
+            change.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action on the main thread and waits for it. Inventories and the economy may only be used there. When the
+     * action did not start in time, it never runs and the trade fails.
+     */
+    private <T> T onMainThread(final Supplier<T> action) {
+        if (Bukkit.isPrimaryThread())
+            return action.get();
+
+        final var started = new AtomicBoolean();
+        final var future = new CompletableFuture<T>();
+
+        try {
+            api.asyncRepository().mainThread().execute(() -> {
+                if (!started.compareAndSet(false, true))
+                    return;
+
+                try {
+                    future.complete(action.get());
+                } catch (final RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            throw new UnrecoverableException("Unable to run trade on the main thread", e);
+        }
+
+        try {
+            return future.get(MAIN_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (final TimeoutException e) {
+            if (started.compareAndSet(false, true))
+                throw new UnrecoverableException("Timed out waiting for the main thread", e);
+
+            //NOTE: The action started just in time, its result has to be used because it may have moved items or money.
+            return join(future);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+
+            throw new UnrecoverableException("Error while running trade on the main thread", e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            if (started.compareAndSet(false, true))
+                throw new UnrecoverableException("Interrupted while waiting for the main thread", e);
+
+            return join(future);
+        }
+    }
+
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
 
-        for (final var shopOwner : shop.owners()) {
-            result.put(shopOwner.uniqueId(), amount * (shopOwner.share() * 0.01));
+            throw e;
         }
+    }
 
-        return result;
+    /**
+     * Runs the action on the main thread without waiting for it. Pending actions still run when the plugin is disabled.
+     */
+    private void laterOnMainThread(final Runnable action) {
+        api.asyncRepository().mainThread().execute(action);
+    }
+
+    private ShopLog log(final ShopLog.Action action, final UUID uniqueId, final Object data) {
+        return api.repository()
+                .<ShopLog.Builder>builder(ShopLog.Builder.class)
+                .action(action)
+                .uniqueId(uniqueId)
+                .serialized(data)
+                .build();
     }
 
     @Override
     public void buy(final UUID uniqueId, final Shop shop) throws SlabbyException {
+        buy(uniqueId, shop, 1);
+    }
+
+    @Override
+    public void buy(final UUID uniqueId, final Shop shop, final int lots) throws SlabbyException {
+        if (lots < 1)
+            throw new IllegalArgumentException("Lots have to be higher than zero");
+
         if (!api.permission().hasPermission(uniqueId, SlabbyPermissions.SHOP_INTERACT))
             throw new NoPermissionException();
 
-        api.repository().refresh(shop);
-
         if (shop.buyPrice() == null)
             throw new UnsupportedOperationException("Unable to buy from shop: shop is not selling");
 
         final var client = Objects.requireNonNull(Bukkit.getPlayer(uniqueId));
 
-        if (!shop.hasStock(shop.quantity()))
+        final var price = shop.buyPrice();
+        final var quantity = shop.quantity();
+        final var total = totalQuantity(quantity, lots);
+
+        if (!shop.hasStock(total))
             throw new ShopOutOfStockException();
 
-        final var result = api.economy().withdraw(uniqueId, shop.buyPrice());
+        final var itemStack = api.serialization().<ItemStack>deserialize(shop.item());
+
+        //NOTE: Economy providers are not required to be thread-safe, so they are only used on the main thread.
+        final var result = onMainThread(() -> {
+            if (!ItemHelper.hasSpace(client.getInventory(), itemStack, total))
+                throw new PlayerOutOfInventorySpaceException();
+
+            return api.economy().withdraw(uniqueId, price * lots);
+        });
 
         if (!result.success())
             throw new InsufficientBalanceToBuyException();
 
-        final var itemStack = api.serialization().<ItemStack>deserialize(shop.item());
+        //NOTE: With settlement the owners are paid out later, their revenue is booked together with the trade.
+        final var ledger = settles() && shop.stock() != null ? splitCost(result.amount(), shop) : Map.<UUID, Double>of();
 
-        if (!ItemHelper.hasSpace(client.getInventory(), itemStack, shop.quantity()))
-            throw new PlayerOutOfInventorySpaceException();
+        try {
+            commit(shop, ledger, () -> {
+                //NOTE: The client paid for what they saw, an owner changing the offer in the meantime cancels the trade.
+                if (!Objects.equals(shop.buyPrice(), price) || shop.quantity() != quantity)
+                    throw new StaleShopException();
 
-        if (shop.stock() != null) {
-            shop.stock(shop.stock() - shop.quantity());
-            final var cost = splitCost(result.amount(), shop);
-            //NOTE: We don't really have a way to guarantee multiple deposits in a transaction like manner.
-            cost.forEach((key, value) -> api.economy().deposit(key, value));
+                if (!shop.hasStock(total))
+                    throw new ShopOutOfStockException();
+
+                if (shop.stock() != null)
+                    shop.stock(shop.stock() - total);
+
+                return log(ShopLog.Action.BUY, uniqueId, new Transaction(price * lots, total));
+            });
+        } catch (final SlabbyException e) {
+            laterOnMainThread(() -> api.economy().deposit(uniqueId, result.amount()));
+            throw e;
         }
 
-        api.repository().transaction(() -> {
-            api.repository().update(shop);
+        final var cost = shop.stock() != null && !settles() ? splitCost(result.amount(), shop) : Map.<UUID, Double>of();
 
-            final var log = api.repository()
-                    .<ShopLog.Builder>builder(ShopLog.Builder.class)
-                    .action(ShopLog.Action.BUY)
-                    .uniqueId(uniqueId)
-                    .serialized(new Transaction(shop.buyPrice(), shop.quantity()))
-                    .build();
+        laterOnMainThread(() -> {
+            //NOTE: We don't really have a way to guarantee multiple deposits in a transaction like manner.
+            cost.forEach((key, value) -> api.economy().deposit(key, value));
 
-            shop.logs().add(log);
-            return null;
+            addItemToInventory(itemStack, client, total);
+
+            notifyBuy(uniqueId, shop, client, itemStack, total, result.amount());
         });
+    }
+
+    @Override
+    public int maxBuyLots(final UUID uniqueId, final Shop shop) {
+        final var client = Bukkit.getPlayer(uniqueId);
 
-        addItemToInventory(itemStack, client, shop.quantity());
+        if (client == null || shop.buyPrice() == null)
+            return 0;
 
-        notifyBuy(uniqueId, shop, client, itemStack);
+        final var quantity = shop.quantity();
+        final var itemStack = api.serialization().<ItemStack>deserialize(shop.item());
+
+        var lots = ItemHelper.getSpace(client.getInventory(), itemStack) / quantity;
+
+        if (shop.stock() != null)
+            lots = Math.min(lots, shop.stock() / quantity);
+
+        if (shop.buyPrice() > 0)
+            lots = (int) Math.min(lots, Math.floor(api.economy().balance(uniqueId) / shop.buyPrice()));
+
+        return Math.max(0, lots);
     }
 
-    private void notifyBuy(final UUID uniqueId, final Shop shop, final Player client, final ItemStack itemStack) {
+    private void notifyBuy(final UUID uniqueId, final Shop shop, final Player client, final ItemStack itemStack, final int quantity, final double amount) {
         api.sound().play(uniqueId, shop, Sounds.BUY_SELL_SUCCESS);
 
-        client.sendMessage(api.messages().client().buy().message(itemStack.displayName(), shop.quantity(), shop.buyPrice()));
+        client.sendMessage(api.messages().client().buy().message(itemStack.displayName(), quantity, amount));
 
         if (shop.stock() != null) {
-            for (final var shopOwner : shop.owners()) {
-                final var playerOwner = Bukkit.getPlayer(shopOwner.uniqueId());
+            for (final var ownerId : shop.shares().uniqueIds()) {
+                final var playerOwner = Bukkit.getPlayer(ownerId);
 
                 if (playerOwner != null) {
-                    playerOwner.sendMessage(api.messages().client().buy().messageOwner(client.displayName(), shop.quantity(), itemStack.displayName(), shop.buyPrice()));
+                    playerOwner.sendMessage(api.messages().client().buy().messageOwner(client.displayName(), quantity, itemStack.displayName(), amount));
                 }
             }
         }
@@ -141,82 +334,163 @@ public final class BukkitShopOperations implements ShopOperations {
 
     @Override
     public void sell(final UUID uniqueId, final Shop shop) throws SlabbyException {
+        sell(uniqueId, shop, 1);
+    }
+
+    @Override
+    public void sell(final UUID uniqueId, final Shop shop, final int lots) throws SlabbyException {
+        if (lots < 1)
+            throw new IllegalArgumentException("Lots have to be higher than zero");
+
         if (!api.permission().hasPermission(uniqueId, SlabbyPermissions.SHOP_INTERACT))
             throw new NoPermissionException();
 
-        api.repository().refresh(shop);
-
         if (shop.sellPrice() == null)
             throw new UnsupportedOperationException("Unable to sell to shop: shop is not buying");
 
         final var client = Objects.requireNonNull(Bukkit.getPlayer(uniqueId));
         final var itemStack = api.serialization().<ItemStack>deserialize(shop.item());
 
-        if (!client.getInventory().containsAtLeast(itemStack, shop.quantity()))
-            throw new PlayerOutOfStockException();
+        final var price = shop.sellPrice();
+        final var quantity = shop.quantity();
+        final var total = totalQuantity(quantity, lots);
+        final var amount = price * lots;
 
-        final var cost = splitCost(shop.sellPrice(), shop);
+        final var cost = splitCost(amount, shop);
 
-        if (shop.stock() != null) {
-            if (cost.entrySet().stream().anyMatch(it -> !api.economy().hasAmount(it.getKey(), it.getValue())))
+        final var ledger = new HashMap<UUID, Double>();
+
+        if (settles() && shop.stock() != null)
+            cost.forEach((key, value) -> ledger.put(key, -value));
+
+        //NOTE: The items are taken before the trade is written, so the client cannot move them away in the meantime.
+        final var escrowed = onMainThread(() -> {
+            if (shop.stock() != null && cost.entrySet().stream().anyMatch(it -> !canPay(it.getKey(), it.getValue())))
                 throw new InsufficientBalanceToSellException();
 
-            try {
-                final var stock = Math.addExact(shop.stock(), shop.quantity());
+            if (!client.getInventory().containsAtLeast(itemStack, total))
+                return false;
 
-                if (stock > api.configuration().maxStock())
-                    throw new ShopOutOfSpaceException();
+            removeItemFromInventory(itemStack, client, total);
+            return true;
+        });
 
-                shop.stock(stock);
-            } catch (final ArithmeticException e) {
-                throw new ShopOutOfSpaceException(e);
-            }
+        if (!escrowed)
+            throw new PlayerOutOfStockException();
+
+        try {
+            commit(shop, ledger, () -> {
+                if (!Objects.equals(shop.sellPrice(), price) || shop.quantity() != quantity)
+                    throw new StaleShopException();
+
+                if (shop.stock() != null) {
+                    try {
+                        final var stock = Math.addExact(shop.stock(), total);
+
+                        if (stock > api.configuration().maxStock())
+                            throw new ShopOutOfSpaceException();
+
+                        shop.stock(stock);
+                    } catch (final ArithmeticException e) {
+                        throw new ShopOutOfSpaceException(e);
+                    }
+                }
+
+                return log(ShopLog.Action.SELL, uniqueId, new Transaction(amount, total));
+            });
+        } catch (final RuntimeException e) {
+            laterOnMainThread(() -> addItemToInventory(itemStack, client, total));
+            throw e;
         }
 
-        api.repository().transaction(() -> {
-            api.repository().update(shop);
+        final var paysOut = shop.stock() != null && !settles();
 
-            final var log = api.repository()
-                    .<ShopLog.Builder>builder(ShopLog.Builder.class)
-                    .action(ShopLog.Action.SELL)
-                    .uniqueId(uniqueId)
-                    .serialized(new Transaction(shop.sellPrice(), shop.quantity()))
-                    .build();
+        laterOnMainThread(() -> {
+            //NOTE: We don't really have a way to guarantee multiple deposits in a transaction like manner.
+            if (paysOut)
+                cost.forEach((key, value) -> api.economy().withdraw(key, value));
 
-            shop.logs().add(log);
-            return null;
+            api.economy().deposit(uniqueId, amount);
+
+            notifySell(shop, client, itemStack, total, amount);
         });
+    }
 
-        if (shop.stock() != null) {
-            //NOTE: We don't really have a way to guarantee multiple deposits in a transaction like manner.
-            cost.forEach((key, value) -> api.economy().withdraw(key, value));
-        }
+    @Override
+    public int maxSellLots(final UUID uniqueId, final Shop shop) {
+        final var client = Bukkit.getPlayer(uniqueId);
 
-        api.economy().deposit(uniqueId, shop.sellPrice());
+        if (client == null || shop.sellPrice() == null)
+            return 0;
 
-        itemStack.setAmount(shop.quantity());
+        final var quantity = shop.quantity();
+        final var itemStack = api.serialization().<ItemStack>deserialize(shop.item());
+
+        var lots = ItemHelper.countSimilar(client.getInventory(), itemStack) / quantity;
+
+        if (shop.stock() != null) {
+            lots = Math.min(lots, Math.max(0, api.configuration().maxStock() - shop.stock()) / quantity);
 
-        client.getInventory().removeItem(itemStack);
+            //NOTE: Every owner pays their share of each lot, the poorest owner relative to their share sets the limit.
+            if (shop.sellPrice() > 0) {
+                for (final var ownerId : shop.shares().uniqueIds()) {
+                    final var share = shop.sellPrice() * shop.shares().fraction(ownerId);
 
-        notifySell(shop, client, itemStack);
+                    if (share > 0)
+                        lots = (int) Math.min(lots, Math.floor(available(ownerId) / share));
+                }
+            }
+        }
+
+        return Math.max(0, lots);
     }
 
-    private void notifySell(final Shop shop, final Player client, final ItemStack itemStack) {
+    private void notifySell(final Shop shop, final Player client, final ItemStack itemStack, final int quantity, final double amount) {
         api.sound().play(client.getUniqueId(), shop, Sounds.BUY_SELL_SUCCESS);
 
-        client.sendMessage(api.messages().client().sell().message(itemStack.displayName(), shop.quantity(), shop.sellPrice()));
+        client.sendMessage(api.messages().client().sell().message(itemStack.displayName(), quantity, amount));
 
         if (shop.stock() != null) {
-            for (final var shopOwner : shop.owners()) {
-                final var playerOwner = Bukkit.getPlayer(shopOwner.uniqueId());
+            for (final var ownerId : shop.shares().uniqueIds()) {
+                final var playerOwner = Bukkit.getPlayer(ownerId);
 
                 if (playerOwner != null) {
-                    playerOwner.sendMessage(api.messages().client().sell().messageOwner(client.displayName(), shop.quantity(), itemStack.displayName(), shop.buyPrice()));
+                    playerOwner.sendMessage(api.messages().client().sell().messageOwner(client.displayName(), quantity, itemStack.displayName(), amount));
                 }
             }
         }
     }
 
+    private boolean settles() {
+        final var settlement = api.configuration().settlement();
+
+        return settlement != null && settlement.enabled();
+    }
+
+    //NOTE: With settlement, revenue that was not paid out yet covers sale costs first, the economy only has to cover the rest.
+    private boolean canPay(final UUID uniqueId, final double amount) {
+        if (!settles())
+            return api.economy().hasAmount(uniqueId, amount);
+
+        final var missing = amount - api.repository().ledgerBalance(uniqueId);
+
+        return missing <= 0 || api.economy().hasAmount(uniqueId, missing);
+    }
+
+    private double available(final UUID uniqueId) {
+        final var balance = api.economy().balance(uniqueId);
+
+        return settles() ? balance + api.repository().ledgerBalance(uniqueId) : balance;
+    }
+
+    private static int totalQuantity(final int quantity, final int lots) {
+        try {
+            return Math.multiplyExact(quantity, lots);
+        } catch (final ArithmeticException e) {
+            throw new ShopOutOfStockException(e);
+        }
+    }
+
     @Override
     public void withdraw(final UUID uniqueId, final Shop shop, final int amount) throws SlabbyException {
         if (amount < 1)
@@ -225,8 +499,6 @@ public final class BukkitShopOperations implements ShopOperations {
         if (shop.stock() == null)
             throw new UnsupportedOperationException("Cannot withdraw from admin shop");
 
-        api.repository().refresh(shop);
-
         if (!shop.hasStock(amount))
             throw new ShopOutOfStockException();
 
@@ -236,22 +508,15 @@ public final class BukkitShopOperations implements ShopOperations {
         if (!ItemHelper.hasSpace(shopOwner.getInventory(), itemStack, amount))
             throw new PlayerOutOfInventorySpaceException();
 
-        final var stock = shop.stock();
-
-        shop.stock(stock - amount);
+        commit(shop, () -> {
+            if (!shop.hasStock(amount))
+                throw new ShopOutOfStockException();
 
-        api.repository().transaction(() -> {
-            api.repository().update(shop);
+            final var stock = shop.stock();
 
-            final var log = api.repository()
-                    .<ShopLog.Builder>builder(ShopLog.Builder.class)
-                    .action(ShopLog.Action.WITHDRAW)
-                    .uniqueId(uniqueId)
-                    .serialized(new ValueChanged.Int(stock, shop.stock()))
-                    .build();
+            shop.stock(stock - amount);
 
-            shop.logs().add(log);
-            return null;
+            return log(ShopLog.Action.WITHDRAW, uniqueId, new ValueChanged.Int(stock, shop.stock()));
         });
 
         addItemToInventory(itemStack, shopOwner, amount);
@@ -267,8 +532,6 @@ public final class BukkitShopOperations implements ShopOperations {
         if (shop.stock() == null)
             throw new UnsupportedOperationException("Cannot deposit to admin shop");
 
-        api.repository().refresh(shop);
-
         final var shopOwner = Objects.requireNonNull(Bukkit.getPlayer(uniqueId));
         final var itemStack = api.serialization().<ItemStack>deserialize(shop.item());
         final var itemInHand = shopOwner.getInventory().getItemInMainHand();
@@ -296,11 +559,13 @@ public final class BukkitShopOperations implements ShopOperations {
             removeItem = () -> shopOwner.getInventory().removeItem(itemStack);
         }
 
-        final var oldStock = shop.stock();
+        final var quantity = amount;
+
+        commit(shop, () -> {
+            final var oldStock = shop.stock();
 
-        if (shop.stock() != null) {
             try {
-                final var stock = Math.addExact(oldStock, amount);
+                final var stock = Math.addExact(oldStock, quantity);
 
                 if (stock > api.configuration().maxStock())
                     throw new ShopOutOfSpaceException();
@@ -309,20 +574,8 @@ public final class BukkitShopOperations implements ShopOperations {
             } catch (final ArithmeticException e) {
                 throw new ShopOutOfSpaceException(e);
             }
-        }
-
-        api.repository().transaction(() -> {
-            api.repository().update(shop);
-
-            final var log = api.repository()
-                    .<ShopLog.Builder>builder(ShopLog.Builder.class)
-                    .action(ShopLog.Action.DEPOSIT)
-                    .uniqueId(uniqueId)
-                    .serialized(new ValueChanged.Int(oldStock, shop.stock()))
-                    .build();
 
-            shop.logs().add(log);
-            return null;
+            return log(ShopLog.Action.DEPOSIT, uniqueId, new ValueChanged.Int(oldStock, shop.stock()));
         });
 
         itemStack.setAmount(amount);
@@ -339,12 +592,13 @@ public final class BukkitShopOperations implements ShopOperations {
         final var oldZ = new AtomicReference<Integer>();
         final var oldWorld = new AtomicReference<String>();
 
-        final var success = api.repository().transaction(() -> {
-            final var shopOpt = api.repository().shopById(wizard.id());
+        //NOTE: The existing shop is looked up before the transaction, its lock has to be taken before the writer.
+        final var existingOpt = api.repository().shopById(wizard.id());
 
-            if (shopOpt.isPresent()) {
-                final var shop = shopOpt.get();
+        if (existingOpt.isPresent()) {
+            final var shop = existingOpt.get();
 
+            locked(shop, () -> api.repository().transaction(() -> {
                 shop.buyPrice(wizard.buyPrice());
                 shop.sellPrice(wizard.sellPrice());
                 shop.quantity(wizard.quantity());
@@ -359,59 +613,56 @@ public final class BukkitShopOperations implements ShopOperations {
 
                 shop.location(wizard.x(), wizard.y(), wizard.z(), wizard.world());
 
-                api.repository().transaction(() -> {
-                    for (final var entry : wizard.valueChanges().entrySet()) {
-                        final var log = api.repository().<ShopLog.Builder>builder(ShopLog.Builder.class)
-                                .action(entry.getKey())
-                                .uniqueId(uniqueId)
-                                .serialized(entry.getValue())
-                                .build();
-
-                        shop.logs().add(log);
-                    }
-                    api.repository().update(shop);
-                    return null;
-                });
-            } else {
-                final var shop = api.repository().<Shop.Builder>builder(Shop.Builder.class)
-                        .location(wizard.x(), wizard.y(), wizard.z(), wizard.world())
-                        .item(wizard.item())
-                        .buyPrice(wizard.buyPrice())
-                        .sellPrice(wizard.sellPrice())
-                        .quantity(wizard.quantity())
-                        .note(wizard.note())
-                        .stock(api.isAdminMode(uniqueId) ? null : 0)
-                        .build();
+                for (final var entry : wizard.valueChanges().entrySet()) {
+                    final var log = api.repository().<ShopLog.Builder>builder(ShopLog.Builder.class)
+                            .action(entry.getKey())
+                            .uniqueId(uniqueId)
+                            .serialized(entry.getValue())
+                            .build();
 
-                api.repository().transaction(() -> {
-                    api.repository().createOrUpdate(shop);
+                    api.repository().log(shop, log);
+                }
+                api.repository().update(shop);
+                return null;
+            }));
+        } else {
+            final var shop = api.repository().<Shop.Builder>builder(Shop.Builder.class)
+                    .location(wizard.x(), wizard.y(), wizard.z(), wizard.world())
+                    .item(wizard.item())
+                    .buyPrice(wizard.buyPrice())
+                    .sellPrice(wizard.sellPrice())
+                    .quantity(wizard.quantity())
+                    .note(wizard.note())
+                    .stock(api.isAdminMode(uniqueId) ? null : 0)
+                    .build();
 
-                    shop.owners().add(api.repository().<ShopOwner.Builder>builder(ShopOwner.Builder.class)
-                            .uniqueId(uniqueId)
-                            .share(100)
-                            .build());
+            api.repository().transaction(() -> {
+                api.repository().createOrUpdate(shop);
 
-                    shop.logs().add(api.repository().<ShopLog.Builder>builder(ShopLog.Builder.class)
-                            .action(ShopLog.Action.SHOP_CREATED)
-                            .uniqueId(uniqueId).build());
+                api.repository().createOrUpdate(api.repository().<ShopOwner.Builder>builder(ShopOwner.Builder.class)
+                        .shop(shop)
+                        .uniqueId(uniqueId)
+                        .share(100)
+                        .build());
 
-                    return null;
-                });
-            }
+                api.repository().log(shop, api.repository().<ShopLog.Builder>builder(ShopLog.Builder.class)
+                        .action(ShopLog.Action.SHOP_CREATED)
+                        .uniqueId(uniqueId).build());
 
-            return true;
-        });
+                return null;
+            });
+        }
 
-        if (success) {
-            final var shopOpt = api.repository().shopAt(wizard.x(), wizard.y(), wizard.z(), wizard.world());
+        final var shopOpt = api.repository().shopAt(wizard.x(), wizard.y(), wizard.z(), wizard.world());
 
-            if (shopOpt.isPresent()) {
-                final var shop = shopOpt.get();
+        if (shopOpt.isPresent()) {
+            final var shop = shopOpt.get();
 
+            locked(shop, () -> {
                 removeAndSpawnDisplayItem(oldX.get(), oldY.get(), oldZ.get(), oldWorld.get(), shop);
 
                 api.repository().update(shop);
-            }
+            });
         }
     }
 
@@ -420,7 +671,7 @@ public final class BukkitShopOperations implements ShopOperations {
         if (shop.displayEntityId() != null && Bukkit.getEntity(shop.displayEntityId()) instanceof Display e)
             e.remove();
 
-        api.repository().markAsDeleted(uniqueId, shop);
+        locked(shop, () -> api.repository().markAsDeleted(uniqueId, shop));
 
         api.sound().play(uniqueId, shop, Sounds.DESTROY);
     }
@@ -471,9 +722,9 @@ public final class BukkitShopOperations implements ShopOperations {
         if (linkShopOpt.isPresent()) {
             final var shop = linkShopOpt.get();
 
-            shop.inventory(x, y, z, world);
+            locked(shop, () -> api.repository().transaction(() -> {
+                shop.inventory(x, y, z, world);
 
-            api.repository().transaction(() -> {
                 api.repository().update(shop);
 
                 final var log = api.repository().<ShopLog.Builder>builder(ShopLog.Builder.class)
@@ -482,10 +733,10 @@ public final class BukkitShopOperations implements ShopOperations {
                         .serialized(new LocationChanged(shop.inventoryX(), shop.inventoryY(), shop.inventoryZ(), shop.world()))
                         .build();
 
-                shop.logs().add(log);
+                api.repository().log(shop, log);
 
                 return null;
-            });
+            }));
 
             api.sound().play(uniqueId, shop, Sounds.SUCCESS);
         }
@@ -495,9 +746,9 @@ public final class BukkitShopOperations implements ShopOperations {
 
     @Override
     public void unlinkShop(final UUID uniqueId, final Shop shop) throws SlabbyException {
-        shop.inventory(null, null, null, null);
+        locked(shop, () -> api.repository().transaction(() -> {
+            shop.inventory(null, null, null, null);
 
-        api.repository().transaction(() -> {
             api.repository().update(shop);
 
             final var log = api.repository().<ShopLog.Builder>builder(ShopLog.Builder.class)
@@ -506,10 +757,10 @@ public final class BukkitShopOperations implements ShopOperations {
                     .serialized(new LocationChanged(null, null, null, null))
                     .build();
 
-            shop.logs().add(log);
+            api.repository().log(shop, log);
 
             return null;
-        });
+        }));
 
         api.sound().play(uniqueId, shop, Sounds.MODIFY_SUCCESS);
 
@@ -517,7 +768,18 @@ public final class BukkitShopOperations implements ShopOperations {
                 .sendMessage(api.messages().owner().inventoryLink().cancel().message());
     }
 
+    private static void removeItemFromInventory(final ItemStack itemStack, final Player player, final int amount) {
+        player.getInventory().removeItem(stacks(itemStack, amount));
+    }
+
     private static void addItemToInventory(final ItemStack itemStack, final Player player, final int amount) {
+        //NOTE: The inventory may have filled up since the space was checked, what does not fit is dropped at the player.
+        player.getInventory().addItem(stacks(itemStack, amount)).values()
+                .forEach(it -> player.getWorld().dropItemNaturally(player.getLocation(), it));
+    }
+
+    //NOTE: An item stack cannot hold more than its max stack size, so larger amounts are split up.
+    static ItemStack[] stacks(final ItemStack itemStack, final int amount) {
         final var itemStacks = new ArrayList<ItemStack>();
 
         var quantity = amount;
@@ -533,7 +795,7 @@ public final class BukkitShopOperations implements ShopOperations {
             quantity -= maxStackSize;
         }
 
-        player.getInventory().addItem(itemStacks.toArray(ItemStack[]::new));
+        return itemStacks.toArray(ItemStack[]::new);
     }
 
 }
@@ -0,0 +1,167 @@
+package com.valesmp.slabby.shop;
+
+import com.valesmp.slabby.SlabbyAPI;
+import com.valesmp.slabby.exception.SlabbyException;
+import lombok.RequiredArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Settles the owner ledger with the economy. Every owner is settled once per interval and on join, so a busy co-owned
+ * shop costs one economy call per owner per settlement instead of one per owner per trade.
+ * Settlements are started from the main thread. The ledger is booked on the async repository and only the economy is
+ * called on the main thread, like a trade, except for {@link #settleAllNow()} on shutdown.
+ */
+@RequiredArgsConstructor
+public final class LedgerSettlement {
+
+    //NOTE: Below a hundredth of a cent is rounding noise from splitting amounts by share.
+    private static final double MIN_AMOUNT = 0.0001;
+
+    private final SlabbyAPI api;
+
+    //NOTE: Owners from the moment their amount is taken until it is booked, so a settlement on join and one of the
+    //      interval never take the same balance twice.
+    private final Set<UUID> settling = ConcurrentHashMap.newKeySet();
+
+    public void settleAll() {
+        settleLater(this.api.repository().ledgerBalances());
+    }
+
+    public void settle(final UUID uniqueId) {
+        settleLater(Map.of(uniqueId, this.api.repository().ledgerBalance(uniqueId)));
+    }
+
+    /**
+     * Settles every owner on the calling thread. Only used on shutdown, once the async repository no longer takes tasks.
+     */
+    public void settleAllNow() {
+        final var amounts = amounts(this.api.repository().ledgerBalances());
+
+        if (amounts.isEmpty())
+            return;
+
+        try {
+            if (begin(amounts))
+                finish(pay(amounts));
+        } finally {
+            this.settling.removeAll(amounts.keySet());
+        }
+    }
+
+    private void settleLater(final Map<UUID, Double> balances) {
+        final var amounts = amounts(balances);
+
+        if (amounts.isEmpty())
+            return;
+
+        final var async = this.api.asyncRepository();
+
+        async.supply(() -> begin(amounts))
+                .thenApplyAsync(begun -> begun ? pay(amounts) : null, async.mainThread())
+                .thenCompose(payment -> payment != null ? finishLater(payment) : CompletableFuture.completedFuture(null))
+                .whenComplete((ignored, e) -> {
+                    this.settling.removeAll(amounts.keySet());
+
+                    //NOTE: Whatever was booked but not paid stays pending and is put back on the ledger on the next startup.
+                    if (e != null)
+                        this.api.exceptionService().logToConsole("Error while settling owner ledger: " + amounts, e);
+                });
+    }
+
+    private CompletableFuture<Void> finishLater(final Payment payment) {
+        return this.api.asyncRepository().<Void>supply(() -> {
+            finish(payment);
+            return null;
+        }).exceptionally(e -> {
+            //NOTE: A rejected task fails right away on the main thread. The economy was already called, so the payment is
+            //      booked here instead of being left pending and put back on the ledger on the next startup.
+            if (!(e.getCause() instanceof RejectedExecutionException))
+                throw e instanceof RuntimeException runtime ? runtime : new RuntimeException(e);
+
+            finish(payment);
+            return null;
+        });
+    }
+
+    //NOTE: Runs on the main thread, the economy is asked for the balance of owners that owe money.
+    private Map<UUID, Double> amounts(final Map<UUID, Double> balances) {
+        final var amounts = new HashMap<UUID, Double>();
+
+        balances.forEach((uniqueId, balance) -> {
+            if (this.settling.contains(uniqueId))
+                return;
+
+            if (balance >= MIN_AMOUNT) {
+                amounts.put(uniqueId, balance);
+            } else if (balance <= -MIN_AMOUNT) {
+                //NOTE: An owner that cannot pay everything they owe pays what they can, the rest stays on the ledger.
+                final var amount = Math.min(-balance, this.api.economy().balance(uniqueId));
+
+                if (amount >= MIN_AMOUNT)
+                    amounts.put(uniqueId, -amount);
+            }
+        });
+
+        this.settling.addAll(amounts.keySet());
+
+        return amounts;
+    }
+
+    //NOTE: Moved to pending settlements before the economy is called, so they can never be settled twice. A crash before
+    //      they are completed puts them back on the ledger on the next startup.
+    private boolean begin(final Map<UUID, Double> amounts) {
+        try {
+            this.api.repository().beginSettlement(amounts);
+            return true;
+        } catch (final SlabbyException e) {
+            this.api.exceptionService().logToConsole("Error while booking owner ledger settlement", e);
+            return false;
+        }
+    }
+
+    private Payment pay(final Map<UUID, Double> amounts) {
+        final var payment = new Payment(new HashMap<>(), new HashMap<>());
+
+        amounts.forEach((uniqueId, amount) -> {
+            final var result = amount > 0
+                    ? this.api.economy().deposit(uniqueId, amount)
+                    : this.api.economy().withdraw(uniqueId, -amount);
+
+            (result.success() ? payment.settled() : payment.failed()).put(uniqueId, amount);
+        });
+
+        return payment;
+    }
+
+    private void finish(final Payment payment) {
+        final var settled = payment.settled();
+        final var failed = payment.failed();
+
+        if (!settled.isEmpty()) {
+            try {
+                this.api.repository().completeSettlement(settled);
+            } catch (final SlabbyException e) {
+                this.api.exceptionService().logToConsole("Error while completing owner ledger settlement: " + settled, e);
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            try {
+                this.api.repository().cancelSettlement(failed);
+            } catch (final SlabbyException e) {
+                this.api.exceptionService().logToConsole("Error while restoring owner ledger after failed settlement: " + failed, e);
+            }
+        }
+    }
+
+    private record Payment(Map<UUID, Double> settled, Map<UUID, Double> failed) {
+    }
+
+}
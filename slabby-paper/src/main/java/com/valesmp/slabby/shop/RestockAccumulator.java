@@ -0,0 +1,126 @@
+package com.valesmp.slabby.shop;
+
+import com.valesmp.slabby.SlabbyAPI;
+import com.valesmp.slabby.exception.SlabbyException;
+import com.valesmp.slabby.shop.log.ValueChanged;
+import lombok.RequiredArgsConstructor;
+import org.bukkit.Location;
+import org.bukkit.block.Container;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects the items hoppers move into linked inventories, and adds them to the shop stock periodically. Every shop gets
+ * a single update and a single deposit log per flush, no matter how many transfers happened in between. Items that
+ * cannot be added to the stock are put back into the inventory they were moved into.
+ * Only used from the main thread.
+ */
+@RequiredArgsConstructor
+public final class RestockAccumulator {
+
+    private final SlabbyAPI api;
+
+    private final BukkitShopOperations operations;
+
+    private final Map<Integer, Pending> pending = new LinkedHashMap<>();
+
+    /**
+     * Adds the items to the stock with the next flush. The items have already been taken from the hopper, the inventory
+     * and item are kept so they can be given back when that fails.
+     */
+    public void add(final Shop shop, final int amount, final Location inventory, final ItemStack itemStack) {
+        final var entry = this.pending.get(shop.<Integer>id());
+
+        if (entry == null)
+            this.pending.put(shop.id(), new Pending(shop, amount, inventory.clone(), itemStack.asOne()));
+        else
+            entry.amount += amount;
+    }
+
+    public int size() {
+        return this.pending.size();
+    }
+
+    public void flush() {
+        if (this.pending.isEmpty())
+            return;
+
+        final var batch = this.pending.values().toArray(Pending[]::new);
+
+        this.pending.clear();
+
+        for (final var entry : batch) {
+            try {
+                if (!restock(entry.shop, entry.amount))
+                    giveBack(entry);
+            } catch (final SlabbyException e) {
+                this.api.exceptionService().logToConsole("Error while restocking shop from linked inventory", e);
+                giveBack(entry);
+            }
+        }
+    }
+
+    /**
+     * Adds the amount to the stock, false when the shop no longer takes stock.
+     */
+    private boolean restock(final Shop shop, final int amount) throws SlabbyException {
+        final var skipped = new AtomicBoolean();
+
+        this.operations.commit(shop, () -> {
+            //TODO: ensure shop is not full, use same security measures as deposit function
+            skipped.set(shop.state() != Shop.State.ACTIVE || shop.stock() == null);
+
+            if (skipped.get())
+                return null;
+
+            final var stock = shop.stock();
+
+            shop.stock(stock + amount);
+
+            //NOTE: Hopper deposits have no player.
+            return this.api.repository()
+                    .<ShopLog.Builder>builder(ShopLog.Builder.class)
+                    .action(ShopLog.Action.DEPOSIT)
+                    .serialized(new ValueChanged.Int(stock, shop.stock()))
+                    .build();
+        });
+
+        return !skipped.get();
+    }
+
+    //NOTE: What no longer fits, or has no inventory to go into anymore, is dropped at the inventory.
+    private void giveBack(final Pending entry) {
+        final var itemStacks = BukkitShopOperations.stacks(entry.itemStack, entry.amount);
+
+        final Collection<ItemStack> leftovers = entry.inventory.getBlock().getState() instanceof Container container
+                ? container.getInventory().addItem(itemStacks).values()
+                : List.of(itemStacks);
+
+        leftovers.forEach(it -> entry.inventory.getWorld().dropItemNaturally(entry.inventory, it));
+    }
+
+    private static final class Pending {
+
+        private final Shop shop;
+
+        private final Location inventory;
+
+        private final ItemStack itemStack;
+
+        private int amount;
+
+        private Pending(final Shop shop, final int amount, final Location inventory, final ItemStack itemStack) {
+            this.shop = shop;
+            this.amount = amount;
+            this.inventory = inventory;
+            this.itemStack = itemStack;
+        }
+
+    }
+
+}
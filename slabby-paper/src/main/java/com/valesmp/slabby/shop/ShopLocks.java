@@ -0,0 +1,31 @@
+package com.valesmp.slabby.shop;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock striping keyed by shop id. Changes to the same shop are serialized, changes to different shops only contend when
+ * their ids land on the same stripe.
+ */
+final class ShopLocks {
+
+    private final ReentrantLock[] stripes;
+
+    private final int mask;
+
+    ShopLocks(final int stripes) {
+        //NOTE: Rounded up to a power of two, so the stripe can be picked with a mask.
+        final var size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+
+        this.stripes = new ReentrantLock[size];
+        this.mask = size - 1;
+
+        for (var i = 0; i < size; i++)
+            this.stripes[i] = new ReentrantLock();
+    }
+
+    ReentrantLock of(final Shop shop) {
+        //NOTE: Shop ids are sequential, so neighbouring shops never share a stripe.
+        return this.stripes[shop.<Integer>id() & this.mask];
+    }
+
+}
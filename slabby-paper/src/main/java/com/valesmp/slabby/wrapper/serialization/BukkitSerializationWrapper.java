@@ -5,9 +5,21 @@ import com.valesmp.slabby.exception.UnrecoverableException;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public final class BukkitSerializationWrapper implements SerializationWrapper {
 
+    private static final int TEMPLATE_CAPACITY = 1024;
+
+    //NOTE: Deserialized items are kept as templates that are never handed out, callers always get their own clone.
+    private final Map<String, ItemStack> templates = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, ItemStack> eldest) {
+            return size() > TEMPLATE_CAPACITY;
+        }
+    };
+
     @Override
     public String serialize(final Object item) throws SlabbyException {
         if (!(item instanceof ItemStack itemStack))
@@ -20,8 +32,47 @@ public final class BukkitSerializationWrapper implements SerializationWrapper {
 
     @Override
     public <T> T deserialize(final String item) throws SlabbyException {
+        ItemStack template;
+
+        synchronized (this.templates) {
+            template = this.templates.get(item);
+        }
+
+        if (template == null) {
+            template = ItemStack.deserializeBytes(Base64.getDecoder().decode(item));
+
+            synchronized (this.templates) {
+                this.templates.put(item, template);
+            }
+        }
+
         //noinspection unchecked
-        return (T) ItemStack.deserializeBytes(Base64.getDecoder().decode(item));
+        return (T) template.clone();
+    }
+
+    @Override
+    public long fingerprint(final String item) throws SlabbyException {
+        final var itemStack = this.<ItemStack>deserialize(item);
+
+        itemStack.setAmount(1);
+
+        return hash(itemStack.serializeAsBytes());
+    }
+
+    //NOTE: FNV-1a followed by the murmur3 finalizer, so small differences still spread over all 64 bits.
+    private static long hash(final byte[] bytes) {
+        var hash = 0xcbf29ce484222325L;
+
+        for (final var b : bytes)
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
     }
 
 }
@@ -1,5 +1,15 @@
+plugins {
+    alias(libs.plugins.jmh)
+}
+
 dependencies {
     implementation(project(":slabby-api"))
 
     implementation(libs.bundles.sqlite)
 }
+
+//NOTE: Run with ./gradlew :slabby-sqlite3:jmh, the gc profiler reports the allocations per operation.
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    profilers.add("gc")
+}
@@ -0,0 +1,80 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.dao.BaseDaoImpl;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.table.TableUtils;
+import com.valesmp.slabby.database.SQLiteConnectionSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A temporary database with a square grid of shops, set up like the plugin sets up its own. The DAO is a plain one, the
+ * audit DAOs of the plugin need the running API.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    static final String WORLD = "world";
+
+    private final Path directory;
+
+    final SQLiteConnectionSource connectionSource;
+
+    final Dao<SQLiteShop, Integer> shopDao;
+
+    BenchmarkDatabase(final int size) throws IOException, SQLException {
+        this.directory = Files.createTempDirectory("slabby-jmh");
+
+        this.connectionSource = new SQLiteConnectionSource("jdbc:sqlite:" + this.directory.resolve("slabby.db"), List.of(
+                new SQLiteConnectionSource.Pragma("journal_mode", "WAL"),
+                new SQLiteConnectionSource.Pragma("synchronous", "NORMAL")), 2);
+
+        TableUtils.createTableIfNotExists(this.connectionSource, SQLiteShop.class);
+        TableUtils.createTableIfNotExists(this.connectionSource, SQLiteShopOwner.class);
+        TableUtils.createTableIfNotExists(this.connectionSource, SQLiteShopLog.class);
+
+        this.shopDao = new BaseDaoImpl<>(this.connectionSource, SQLiteShop.class) {};
+
+        this.shopDao.callBatchTasks(() -> {
+            for (var x = 0; x < size; x++) {
+                for (var z = 0; z < size; z++)
+                    this.shopDao.create(shop(x, z));
+            }
+
+            return null;
+        });
+    }
+
+    private static SQLiteShop shop(final int x, final int z) {
+        final var shop = new SQLiteShop();
+
+        shop.item("minecraft:stone");
+        shop.location(x, 64, z, WORLD);
+        shop.inventory(x, 63, z, WORLD);
+        shop.quantity(1);
+        shop.buyPrice(1d);
+        shop.sellPrice(1d);
+        shop.stock(1_000_000);
+        shop.state(Shop.State.ACTIVE);
+        shop.createdOn(new Date());
+
+        return shop;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.connectionSource.closeQuietly();
+
+        try (final var files = Files.list(this.directory)) {
+            for (final var file : files.toList())
+                Files.deleteIfExists(file);
+        }
+
+        Files.deleteIfExists(this.directory);
+    }
+
+}
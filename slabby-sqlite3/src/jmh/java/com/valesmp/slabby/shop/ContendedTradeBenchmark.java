@@ -0,0 +1,134 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.dao.Dao;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Trades from several threads on one shop. Refreshing before every write is how trades used to defend against a stale
+ * stock, the compare-and-set write is what the repository does now. Logs and the ledger are left out, they are the same
+ * either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ContendedTradeBenchmark {
+
+    private static final int SHOP_ID = 1;
+
+    private BenchmarkDatabase database;
+
+    //NOTE: The cached shop every trade works on, changes to it are serialized like the stripe lock does.
+    private SQLiteShop shared;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Setup
+    public void setup() throws IOException, SQLException {
+        this.database = new BenchmarkDatabase(1);
+        this.shared = this.database.shopDao.queryForId(SHOP_ID);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.database.close();
+    }
+
+    /**
+     * A copy of the shop per thread, so the threads write from copies that go stale.
+     */
+    @State(Scope.Thread)
+    public static class Copy {
+
+        private SQLiteShop shop;
+
+        @Setup
+        public void setup(final ContendedTradeBenchmark benchmark) throws SQLException {
+            this.shop = benchmark.database.shopDao.queryForId(SHOP_ID);
+        }
+
+    }
+
+    @Benchmark
+    public void refreshThenUpdate(final Copy copy) throws SQLException {
+        final var dao = this.database.shopDao;
+        final var shop = copy.shop;
+
+        dao.refresh(shop);
+
+        shop.stock(shop.stock() + 1);
+        shop.lastModifiedOn(new Date());
+
+        dao.update(shop);
+    }
+
+    @Benchmark
+    public void compareAndSet(final Copy copy) throws SQLException {
+        final var dao = this.database.shopDao;
+        final var shop = copy.shop;
+
+        //NOTE: Only a conflict costs a read.
+        while (true) {
+            shop.stock(shop.stock() + 1);
+
+            if (compareAndSet(dao, shop))
+                return;
+
+            dao.refresh(shop);
+        }
+    }
+
+    @Benchmark
+    public void compareAndSetLocked() throws SQLException {
+        final var shop = this.shared;
+
+        this.lock.lock();
+
+        try {
+            while (true) {
+                shop.stock(shop.stock() + 1);
+
+                if (compareAndSet(this.database.shopDao, shop))
+                    return;
+
+                this.database.shopDao.refresh(shop);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    //NOTE: The same statement as the repository writes a trade with.
+    private static boolean compareAndSet(final Dao<SQLiteShop, Integer> dao, final SQLiteShop shop) throws SQLException {
+        final var version = shop.version();
+        final var now = new Date();
+
+        final var builder = dao.updateBuilder();
+
+        builder.updateColumnValue(Shop.Names.STOCK, shop.stock())
+                .updateColumnValue(Shop.Names.VERSION, version + 1)
+                .updateColumnValue(Shop.Names.LAST_MODIFIED_ON, now)
+                .where()
+                .eq(Shop.Names.ID, shop.<Integer>id())
+                .and()
+                .eq(Shop.Names.VERSION, version);
+
+        if (builder.update() == 0)
+            return false;
+
+        shop.version(version + 1);
+        shop.lastModifiedOn(now);
+
+        return true;
+    }
+
+}
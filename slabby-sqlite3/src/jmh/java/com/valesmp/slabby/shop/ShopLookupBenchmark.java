@@ -0,0 +1,98 @@
+package com.valesmp.slabby.shop;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The location and area lookups, with a query builder per call as they used to be, and with the queries that
+ * {@link ShopQueries} compiles once. Run with the gc profiler to see the allocations per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShopLookupBenchmark {
+
+    private static final int SIZE = 100;
+
+    private static final int AREA = 8;
+
+    private BenchmarkDatabase database;
+
+    private ShopQueries queries;
+
+    private int next;
+
+    @Setup
+    public void setup() throws IOException, SQLException {
+        this.database = new BenchmarkDatabase(SIZE);
+        this.queries = new ShopQueries(this.database.shopDao);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.database.close();
+    }
+
+    //NOTE: Walks the grid, so every lookup hits another row.
+    private int coordinate() {
+        this.next = (this.next + 7) % SIZE;
+        return this.next;
+    }
+
+    @Benchmark
+    public SQLiteShop shopAtQueryBuilder() throws SQLException {
+        final var x = coordinate();
+        final var z = coordinate();
+
+        return this.database.shopDao.queryBuilder()
+                .where()
+                .eq(Shop.Names.STATE, Shop.State.ACTIVE)
+                .and()
+                .eq(Shop.Names.X, x)
+                .and()
+                .eq(Shop.Names.Y, 64)
+                .and()
+                .eq(Shop.Names.Z, z)
+                .and()
+                .eq(Shop.Names.WORLD, BenchmarkDatabase.WORLD)
+                .queryForFirst();
+    }
+
+    @Benchmark
+    public SQLiteShop shopAtPrepared() throws SQLException {
+        return this.queries.location(coordinate(), 64, coordinate(), BenchmarkDatabase.WORLD);
+    }
+
+    @Benchmark
+    public List<SQLiteShop> shopsInAreaQueryBuilder() throws SQLException {
+        final var x = coordinate();
+        final var z = coordinate();
+
+        return this.database.shopDao.queryBuilder()
+                .where()
+                .eq(Shop.Names.STATE, Shop.State.ACTIVE)
+                .and()
+                .eq(Shop.Names.WORLD, BenchmarkDatabase.WORLD)
+                .and()
+                .between(Shop.Names.X, x, x + AREA)
+                .and()
+                .between(Shop.Names.Z, z, z + AREA)
+                .query();
+    }
+
+    @Benchmark
+    public List<SQLiteShop> shopsInAreaPrepared() throws SQLException {
+        final var x = coordinate();
+        final var z = coordinate();
+
+        return this.queries.inArea(x, z, x + AREA, z + AREA, BenchmarkDatabase.WORLD);
+    }
+
+}
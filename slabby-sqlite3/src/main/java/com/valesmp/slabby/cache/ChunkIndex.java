@@ -0,0 +1,120 @@
+package com.valesmp.slabby.cache;
+
+import com.valesmp.slabby.shop.Shop;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the active shops and linked inventories per chunk. It is complete for the whole database, so a chunk that is not
+ * in the index is guaranteed to contain neither. It is safe to use from any thread.
+ */
+public final class ChunkIndex {
+
+    private static final int NONE = -1;
+
+    private final Map<String, Integer> worldIds = new HashMap<>();
+
+    private final List<LongObjectMap<Integer>> worlds = new ArrayList<>();
+
+    private final LongObjectMap<Footprint> footprints = new LongObjectMap<>();
+
+    public static long key(final int chunkX, final int chunkZ) {
+        return (long) chunkX << 32 | ((long) chunkZ & 0xFFFFFFFFL);
+    }
+
+    public synchronized boolean contains(final int chunkX, final int chunkZ, final String world) {
+        final var id = this.worldIds.get(world);
+
+        if (id == null)
+            return false;
+
+        return this.worlds.get(id).containsKey(key(chunkX, chunkZ));
+    }
+
+    public boolean containsBlock(final int x, final int z, final String world) {
+        return contains(x >> 4, z >> 4, world);
+    }
+
+    public synchronized void store(final Shop shop, final int id) {
+        final var active = shop.state() == Shop.State.ACTIVE;
+        final var hasLocation = active && shop.hasLocation();
+        final var hasInventory = active && shop.hasInventory();
+
+        final var footprint = new Footprint(
+                hasLocation ? worldId(shop.world()) : NONE,
+                hasLocation ? key(shop.x() >> 4, shop.z() >> 4) : 0L,
+                hasInventory ? worldId(shop.inventoryWorld()) : NONE,
+                hasInventory ? key(shop.inventoryX() >> 4, shop.inventoryZ() >> 4) : 0L);
+
+        final var previous = hasLocation || hasInventory ? this.footprints.put(id, footprint) : this.footprints.remove(id);
+
+        if (previous != null) {
+            decrement(previous.world(), previous.chunk());
+            decrement(previous.inventoryWorld(), previous.inventoryChunk());
+        }
+
+        increment(footprint.world(), footprint.chunk());
+        increment(footprint.inventoryWorld(), footprint.inventoryChunk());
+    }
+
+    public synchronized void remove(final int id) {
+        final var previous = this.footprints.remove(id);
+
+        if (previous != null) {
+            decrement(previous.world(), previous.chunk());
+            decrement(previous.inventoryWorld(), previous.inventoryChunk());
+        }
+    }
+
+    public synchronized int size() {
+        var size = 0;
+
+        for (final var world : this.worlds)
+            size += world.size();
+
+        return size;
+    }
+
+    private int worldId(final String world) {
+        final var id = this.worldIds.get(world);
+
+        if (id != null)
+            return id;
+
+        final var newId = this.worlds.size();
+
+        this.worldIds.put(world, newId);
+        this.worlds.add(new LongObjectMap<>());
+
+        return newId;
+    }
+
+    private void increment(final int world, final long chunk) {
+        if (world == NONE)
+            return;
+
+        final var chunks = this.worlds.get(world);
+        final var count = chunks.get(chunk);
+
+        chunks.put(chunk, count == null ? 1 : count + 1);
+    }
+
+    private void decrement(final int world, final long chunk) {
+        if (world == NONE)
+            return;
+
+        final var chunks = this.worlds.get(world);
+        final var count = chunks.get(chunk);
+
+        if (count == null || count <= 1)
+            chunks.remove(chunk);
+        else
+            chunks.put(chunk, count - 1);
+    }
+
+    private record Footprint(int world, long chunk, int inventoryWorld, long inventoryChunk) {}
+
+}
@@ -5,30 +5,36 @@ import com.j256.ormlite.dao.ReferenceObjectCache;
 import com.valesmp.slabby.exception.SlabbyException;
 import com.valesmp.slabby.exception.UnrecoverableException;
 import com.valesmp.slabby.shop.Cache;
-import com.valesmp.slabby.shop.SQLiteShop;
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 
 import java.sql.SQLException;
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Function;
 
+/**
+ * Bounded cache with CLOCK eviction. Entries sit in a fixed ring, a hit only sets the entry's reference bit. Once the ring
+ * is full, every new entry moves the hand past referenced entries, clearing their bit, and replaces the first entry that
+ * was not referenced since the hand last passed it. Eviction is amortized over writes, there is no periodic sweep.
+ * Entries hold their entity strongly, so a hit never goes back to the database until the entry is evicted or invalidated.
+ */
 @Accessors(fluent = true, chain = false)
-public class DaoCache<T, ID, CacheID> implements Cache {
+public abstract class DaoCache<T, ID> implements Cache {
 
     private final Dao<T, ID> dao;
 
-    protected final Map<CacheID, Cached> cache = new HashMap<>();
-
     private final Function<T, ID> resolver;
 
-    public DaoCache(final Dao<T, ID> dao, final Function<T, ID> resolver) {
+    private final Object[] ring;
+
+    private int hand;
+
+    private int size;
+
+    public DaoCache(final Dao<T, ID> dao, final Function<T, ID> resolver, final int capacity) {
         this.dao = dao;
         this.resolver = resolver;
+        this.ring = new Object[Math.max(1, capacity)];
 
         try {
             this.dao.setObjectCache(true);
@@ -37,44 +43,91 @@ public class DaoCache<T, ID, CacheID> implements Cache {
         }
     }
 
-    public Cached get(final CacheID cacheID) throws SlabbyException {
-        final var cached = cache.get(cacheID);
-
-        if (cached != null) {
-            cached.accessed();
+    /**
+     * Creates an entry and gives it a slot in the ring, evicting another entry if the ring is full. The key is kept for
+     * the subclass, so it can find the evicted entry again.
+     */
+    protected synchronized Cached admit(final T item, final Object key) {
+        final var cached = new Cached(item == null ? null : this.resolver.apply(item), item, key);
 
+        if (this.size < this.ring.length) {
+            this.ring[this.size++] = cached;
             return cached;
         }
 
-        return null;
+        while (slot(this.hand).referenced) {
+            slot(this.hand).referenced = false;
+            advance();
+        }
+
+        evict(slot(this.hand));
+
+        this.ring[this.hand] = cached;
+        advance();
+
+        return cached;
+    }
+
+    protected abstract void evict(final Cached cached);
+
+    @Override
+    public synchronized int size() {
+        return this.size;
     }
 
-    public void store(final CacheID cacheID, final T item) {
-        this.cache.put(cacheID, item == null ? new Cached(null) : new Cached(resolver.apply(item)));
+    @Override
+    public int capacity() {
+        return this.ring.length;
     }
 
-    public void delete(final CacheID cacheID) {
-        this.cache.remove(cacheID);
+    @SuppressWarnings("unchecked")
+    private Cached slot(final int index) {
+        return (Cached) this.ring[index];
     }
 
-    public void expire(final Duration time) {
-        final var now = LocalDateTime.now();
+    private void advance() {
+        if (++this.hand < this.ring.length)
+            return;
 
-        this.cache.entrySet().removeIf(e -> e.getValue().lastAccessed().plus(time).isBefore(now));
+        this.hand = 0;
 
-        ((ReferenceObjectCache)this.dao.getObjectCache()).cleanNullReferences(SQLiteShop.class);
+        //NOTE: Once per turn of the hand, so the cost is spread over as many writes as the cache holds.
+        if (this.dao.getObjectCache() instanceof ReferenceObjectCache objectCache)
+            objectCache.cleanNullReferences(this.dao.getDataClass());
     }
 
     @Getter
-    @RequiredArgsConstructor
     public final class Cached {
 
         private final ID identity;
 
-        private LocalDateTime lastAccessed = LocalDateTime.now();
+        private final Object key;
+
+        private volatile boolean referenced;
+
+        @Getter(AccessLevel.NONE)
+        private volatile T entity;
+
+        private Cached(final ID identity, final T entity, final Object key) {
+            this.identity = identity;
+            this.entity = entity;
+            this.key = key;
+        }
+
+        void hold(final T entity) {
+            this.entity = entity;
+        }
+
+        T held() {
+            return this.entity;
+        }
+
+        void release() {
+            this.entity = null;
+        }
 
         public void accessed() {
-            this.lastAccessed = LocalDateTime.now();
+            this.referenced = true;
         }
 
         public boolean hasIdentity() {
@@ -82,6 +135,11 @@ public class DaoCache<T, ID, CacheID> implements Cache {
         }
 
         public T get() throws SlabbyException {
+            final var held = this.entity;
+
+            if (held != null)
+                return held;
+
             try {
                 return dao.queryForId(this.identity());
             } catch (final SQLException e) {
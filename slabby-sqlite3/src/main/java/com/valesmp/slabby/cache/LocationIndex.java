@@ -0,0 +1,97 @@
+package com.valesmp.slabby.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Exact block location index. World names are interned to an int id, and each world has its own primitive long keyed map
+ * with the block coordinates packed into the key.
+ */
+public final class LocationIndex<V> {
+
+    private final Map<String, Integer> worldIds = new HashMap<>();
+
+    private final List<LongObjectMap<V>> worlds = new ArrayList<>();
+
+    /**
+     * Packs block coordinates the same way Minecraft does: 26 bits for x, 26 bits for z and 12 bits for y.
+     * This is exact for every block inside the world border and the build height.
+     */
+    public static long pack(final int x, final int y, final int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+
+    public int worldId(final String world) {
+        final var id = this.worldIds.get(world);
+
+        if (id != null)
+            return id;
+
+        final var newId = this.worlds.size();
+
+        this.worldIds.put(world, newId);
+        this.worlds.add(new LongObjectMap<>());
+
+        return newId;
+    }
+
+    public V get(final int x, final int y, final int z, final String world) {
+        final var id = this.worldIds.get(world);
+
+        if (id == null)
+            return null;
+
+        return this.worlds.get(id).get(pack(x, y, z));
+    }
+
+    public V put(final int x, final int y, final int z, final String world, final V value) {
+        return this.worlds.get(worldId(world)).put(pack(x, y, z), value);
+    }
+
+    public V remove(final int x, final int y, final int z, final String world) {
+        final var id = this.worldIds.get(world);
+
+        if (id == null)
+            return null;
+
+        return this.worlds.get(id).remove(pack(x, y, z));
+    }
+
+    public V get(final int worldId, final long location) {
+        return this.worlds.get(worldId).get(location);
+    }
+
+    public V put(final int worldId, final long location, final V value) {
+        return this.worlds.get(worldId).put(location, value);
+    }
+
+    public V remove(final int worldId, final long location) {
+        return this.worlds.get(worldId).remove(location);
+    }
+
+    public int removeIf(final Predicate<? super V> predicate) {
+        var removed = 0;
+
+        for (final var world : this.worlds)
+            removed += world.removeIf(predicate);
+
+        return removed;
+    }
+
+    public int size() {
+        var size = 0;
+
+        for (final var world : this.worlds)
+            size += world.size();
+
+        return size;
+    }
+
+    public void clear() {
+        this.worlds.forEach(LongObjectMap::clear);
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.valesmp.slabby.cache;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Open-addressing hash map with primitive long keys and linear probing. Lookups never box the key.
+ * Removal uses backward-shift deletion, so the table never accumulates tombstones.
+ */
+public final class LongObjectMap<V> {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int mask;
+
+    private int size;
+
+    public LongObjectMap() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    public LongObjectMap(final int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        var index = mix(key) & this.mask;
+
+        while (true) {
+            final var value = this.values[index];
+
+            if (value == null)
+                return null;
+
+            if (this.keys[index] == key)
+                return (V) value;
+
+            index = (index + 1) & this.mask;
+        }
+    }
+
+    public boolean containsKey(final long key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(final long key, final V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Value cannot be null");
+
+        var index = mix(key) & this.mask;
+
+        while (this.values[index] != null) {
+            if (this.keys[index] == key) {
+                final var previous = (V) this.values[index];
+                this.values[index] = value;
+                return previous;
+            }
+
+            index = (index + 1) & this.mask;
+        }
+
+        this.keys[index] = key;
+        this.values[index] = value;
+
+        //NOTE: The table is kept at most half full, which keeps probe sequences short.
+        if (++this.size > (this.mask + 1) >> 1)
+            resize((this.mask + 1) << 1);
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(final long key) {
+        var index = mix(key) & this.mask;
+
+        while (true) {
+            final var value = this.values[index];
+
+            if (value == null)
+                return null;
+
+            if (this.keys[index] == key) {
+                shiftBackward(index);
+                return (V) value;
+            }
+
+            index = (index + 1) & this.mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public int removeIf(final Predicate<? super V> predicate) {
+        final var removable = new long[this.size];
+        var count = 0;
+
+        for (var i = 0; i < this.values.length; i++) {
+            if (this.values[i] != null && predicate.test((V) this.values[i]))
+                removable[count++] = this.keys[i];
+        }
+
+        for (var i = 0; i < count; i++)
+            remove(removable[i]);
+
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(final Entry<? super V> action) {
+        for (var i = 0; i < this.values.length; i++) {
+            if (this.values[i] != null)
+                action.accept(this.keys[i], (V) this.values[i]);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    private void shiftBackward(final int removed) {
+        var gap = removed;
+        var index = (gap + 1) & this.mask;
+
+        while (this.values[index] != null) {
+            final var home = mix(this.keys[index]) & this.mask;
+
+            //NOTE: An entry may only move into the gap if the gap lies between its home slot and its current slot.
+            if (((index - home) & this.mask) >= ((index - gap) & this.mask)) {
+                this.keys[gap] = this.keys[index];
+                this.values[gap] = this.values[index];
+                gap = index;
+            }
+
+            index = (index + 1) & this.mask;
+        }
+
+        this.keys[gap] = 0L;
+        this.values[gap] = null;
+        this.size--;
+    }
+
+    private void resize(final int capacity) {
+        final var oldKeys = this.keys;
+        final var oldValues = this.values;
+
+        allocate(capacity);
+
+        for (var i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null)
+                continue;
+
+            var index = mix(oldKeys[i]) & this.mask;
+
+            while (this.values[index] != null)
+                index = (index + 1) & this.mask;
+
+            this.keys[index] = oldKeys[i];
+            this.values[index] = oldValues[i];
+        }
+    }
+
+    private void allocate(final int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private static int capacityFor(final int expectedSize) {
+        final var required = Math.max(MINIMUM_CAPACITY, expectedSize * 2);
+        return Integer.highestOneBit(required - 1) << 1;
+    }
+
+    private static int mix(final long key) {
+        var hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+
+    @FunctionalInterface
+    public interface Entry<V> {
+
+        void accept(final long key, final V value);
+
+    }
+
+}
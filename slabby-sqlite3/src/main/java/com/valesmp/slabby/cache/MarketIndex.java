@@ -0,0 +1,119 @@
+package com.valesmp.slabby.cache;
+
+import com.valesmp.slabby.shop.Shop;
+
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Orders the active shops of every item by unit price, one book for buying and one for selling. A shop is only in a
+ * book while it can trade at least once in that direction, so the first offer of a book is always the best one. Every
+ * offer carries the location of its shop, so offers can be matched by area without loading the shop.
+ */
+public final class MarketIndex {
+
+    private static final Comparator<Offer> ORDER = Comparator.comparingDouble(Offer::unitPrice).thenComparingInt(Offer::id);
+
+    private final LongObjectMap<Books> books = new LongObjectMap<>();
+
+    private final LongObjectMap<Footprint> footprints = new LongObjectMap<>();
+
+    public synchronized void store(final Shop shop, final int id, final Integer itemId) {
+        final var active = itemId != null && shop.state() == Shop.State.ACTIVE && shop.quantity() > 0 && shop.hasLocation();
+
+        final var buy = active && shop.buyPrice() != null && shop.hasStock(shop.quantity())
+                ? new Offer(shop.buyPrice() / shop.quantity(), id, shop.x(), shop.z(), shop.world())
+                : null;
+
+        final var sell = active && shop.sellPrice() != null
+                ? new Offer(shop.sellPrice() / shop.quantity(), id, shop.x(), shop.z(), shop.world())
+                : null;
+
+        remove(id);
+
+        if (buy == null && sell == null)
+            return;
+
+        var books = this.books.get(itemId);
+
+        if (books == null) {
+            books = new Books();
+            this.books.put(itemId, books);
+        }
+
+        if (buy != null)
+            books.buy().add(buy);
+
+        if (sell != null)
+            books.sell().add(sell);
+
+        this.footprints.put(id, new Footprint(itemId, buy, sell));
+    }
+
+    public synchronized void remove(final int id) {
+        final var previous = this.footprints.remove(id);
+
+        if (previous == null)
+            return;
+
+        final var books = this.books.get(previous.itemId());
+
+        if (previous.buy() != null)
+            books.buy().remove(previous.buy());
+
+        if (previous.sell() != null)
+            books.sell().remove(previous.sell());
+
+        if (books.buy().isEmpty() && books.sell().isEmpty())
+            this.books.remove(previous.itemId());
+    }
+
+    /**
+     * The first offer inside the area after the given one, or the best offer inside the area when no offer is given.
+     * Offers outside the area are skipped in memory.
+     */
+    public synchronized Offer next(final int itemId, final Shop.Side side, final boolean ascending, final Area area, final Offer after) {
+        final var books = this.books.get(itemId);
+
+        if (books == null)
+            return null;
+
+        final var book = side == Shop.Side.BUY ? books.buy() : books.sell();
+        final var ordered = ascending ? book : book.descendingSet();
+
+        for (final var offer : after == null ? ordered : ordered.tailSet(after, false)) {
+            if (area.contains(offer))
+                return offer;
+        }
+
+        return null;
+    }
+
+    public synchronized int size() {
+        return this.footprints.size();
+    }
+
+    public record Offer(double unitPrice, int id, int x, int z, String world) {}
+
+    public record Area(int minX, int minZ, int maxX, int maxZ, String world) {
+
+        private boolean contains(final Offer offer) {
+            return offer.world().equals(this.world)
+                    && offer.x() >= this.minX && offer.x() <= this.maxX
+                    && offer.z() >= this.minZ && offer.z() <= this.maxZ;
+        }
+
+    }
+
+    private record Books(NavigableSet<Offer> buy, NavigableSet<Offer> sell) {
+
+        private Books() {
+            this(new TreeSet<>(ORDER), new TreeSet<>(ORDER));
+        }
+
+    }
+
+    private record Footprint(int itemId, Offer buy, Offer sell) {}
+
+}
@@ -4,36 +4,110 @@ import com.j256.ormlite.dao.Dao;
 import com.valesmp.slabby.shop.SQLiteShop;
 import com.valesmp.slabby.shop.Shop;
 
-import java.util.Objects;
+public final class ShopCache extends DaoCache<SQLiteShop, Integer> {
 
-public final class ShopCache extends DaoCache<SQLiteShop, Integer, Integer> {
+    private final ShopLocationIndex<Cached> index = new ShopLocationIndex<>(Cached::identity);
 
-    public ShopCache(final Dao<SQLiteShop, Integer> dao) {
-        super(dao, SQLiteShop::id);
+    //NOTE: A shop keeps a single entry, so storing it again after an update does not take another slot.
+    private final LongObjectMap<Cached> shops = new LongObjectMap<>();
+
+    public ShopCache(final Dao<SQLiteShop, Integer> dao, final int capacity) {
+        super(dao, SQLiteShop::id, capacity);
+    }
+
+    public Cached location(final int x, final int y, final int z, final String world) {
+        return accessed(this.index.location(x, y, z, world));
+    }
+
+    public Cached inventory(final int x, final int y, final int z, final String world) {
+        return accessed(this.index.inventory(x, y, z, world));
+    }
+
+    public SQLiteShop byId(final int id) {
+        final Cached cached;
+
+        synchronized (this) {
+            cached = this.shops.get(id);
+        }
+
+        return cached == null ? null : accessed(cached).held();
+    }
+
+    /**
+     * Remembers that there is no shop at the location, unless something was stored there in the meantime. A lookup that
+     * missed can finish after a shop at that location was stored, the shop has to win.
+     */
+    public synchronized void storeMissingLocation(final int x, final int y, final int z, final String world) {
+        //NOTE: Every write to the index happens while holding this cache, so the check and the put cannot be split up.
+        if (this.index.location(x, y, z, world) == null)
+            this.index.location(x, y, z, world, admit(null, new Missing(false, x, y, z, world)));
     }
 
-    public static int hash(final int x, final int y, final int z, final String world) {
-        return Objects.hash(x, y, z, world);
+    public synchronized void storeMissingInventory(final int x, final int y, final int z, final String world) {
+        if (this.index.inventory(x, y, z, world) == null)
+            this.index.inventory(x, y, z, world, admit(null, new Missing(true, x, y, z, world)));
     }
 
-    public void store(final int x, final int y, final int z, final String world, final Shop shop) {
-        this.store(hash(x, y, z, world), (SQLiteShop) shop);
+    public synchronized void store(final Shop shop) {
+        final int id = shop.id();
+
+        var cached = this.shops.get(id);
+
+        if (cached == null) {
+            cached = admit((SQLiteShop) shop, null);
+            this.shops.put(id, cached);
+        } else {
+            //NOTE: Keeps the entry on the instance that was just written, in case it is not the one that was cached.
+            cached.hold((SQLiteShop) shop);
+            cached.accessed();
+        }
+
+        this.index.store(shop, id, cached);
     }
 
-    public void store(final Shop shop) {
-        if (shop.hasLocation())
-            this.store(shop.x(), shop.y(), shop.z(), shop.world(), shop);
+    /**
+     * Drops a shop from the cache, the next lookup of one of its locations goes to the database again.
+     */
+    public synchronized void invalidate(final int id) {
+        final var cached = this.shops.remove(id);
 
-        if (shop.hasInventory())
-            this.store(shop.inventoryX(), shop.inventoryY(), shop.inventoryZ(), shop.inventoryWorld(), shop);
+        if (cached == null)
+            return;
+
+        cached.release();
+        this.index.remove(id);
     }
 
-    public Cached get(final int x, final int y, final int z, final String world) {
-        return get(hash(x, y, z, world));
+    @Override
+    protected void evict(final Cached cached) {
+        if (cached.key() instanceof Missing missing) {
+            if (missing.inventory())
+                this.index.removeInventory(missing.x(), missing.y(), missing.z(), missing.world(), cached);
+            else
+                this.index.removeLocation(missing.x(), missing.y(), missing.z(), missing.world(), cached);
+
+            return;
+        }
+
+        cached.release();
+
+        final int id = cached.identity();
+
+        //NOTE: The shop may have been invalidated and cached again since, then this entry no longer owns its locations.
+        if (this.shops.get(id) != cached)
+            return;
+
+        this.shops.remove(id);
+        this.index.remove(id);
     }
 
-    public void delete(final int x, final int y, final int z, final String world) {
-        this.delete(hash(x, y, z, world));
+    private static Cached accessed(final Cached cached) {
+        if (cached != null)
+            cached.accessed();
+
+        return cached;
     }
 
+    private record Missing(boolean inventory, int x, int y, int z, String world) {}
+
 }
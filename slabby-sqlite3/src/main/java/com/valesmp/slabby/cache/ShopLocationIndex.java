@@ -0,0 +1,113 @@
+package com.valesmp.slabby.cache;
+
+import com.valesmp.slabby.shop.Shop;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Indexes shops by both their shop location and their linked inventory location. Every shop's last indexed footprint is
+ * remembered, so a moved, unlinked or deleted shop has its old locations evicted when it is stored again. It is safe to
+ * use from any thread.
+ */
+public final class ShopLocationIndex<V> {
+
+    private static final int NONE = -1;
+
+    private final LocationIndex<V> locations = new LocationIndex<>();
+
+    private final LocationIndex<V> inventories = new LocationIndex<>();
+
+    private final LongObjectMap<Footprint> footprints = new LongObjectMap<>();
+
+    private final Function<V, Integer> identity;
+
+    public ShopLocationIndex(final Function<V, Integer> identity) {
+        this.identity = identity;
+    }
+
+    public synchronized V location(final int x, final int y, final int z, final String world) {
+        return this.locations.get(x, y, z, world);
+    }
+
+    public synchronized V inventory(final int x, final int y, final int z, final String world) {
+        return this.inventories.get(x, y, z, world);
+    }
+
+    public synchronized void location(final int x, final int y, final int z, final String world, final V value) {
+        this.locations.put(x, y, z, world, value);
+    }
+
+    public synchronized void inventory(final int x, final int y, final int z, final String world, final V value) {
+        this.inventories.put(x, y, z, world, value);
+    }
+
+    public synchronized void store(final Shop shop, final int id, final V value) {
+        final var active = shop.state() == Shop.State.ACTIVE;
+        final var hasLocation = active && shop.hasLocation();
+        final var hasInventory = active && shop.hasInventory();
+
+        final var footprint = new Footprint(
+                hasLocation ? this.locations.worldId(shop.world()) : NONE,
+                hasLocation ? LocationIndex.pack(shop.x(), shop.y(), shop.z()) : 0L,
+                hasInventory ? this.inventories.worldId(shop.inventoryWorld()) : NONE,
+                hasInventory ? LocationIndex.pack(shop.inventoryX(), shop.inventoryY(), shop.inventoryZ()) : 0L);
+
+        final var previous = hasLocation || hasInventory ? this.footprints.put(id, footprint) : this.footprints.remove(id);
+
+        if (previous != null) {
+            if (previous.world() != NONE && (previous.world() != footprint.world() || previous.location() != footprint.location()))
+                evict(this.locations, previous.world(), previous.location(), id);
+
+            if (previous.inventoryWorld() != NONE && (previous.inventoryWorld() != footprint.inventoryWorld() || previous.inventory() != footprint.inventory()))
+                evict(this.inventories, previous.inventoryWorld(), previous.inventory(), id);
+        }
+
+        if (hasLocation)
+            this.locations.put(footprint.world(), footprint.location(), value);
+
+        if (hasInventory)
+            this.inventories.put(footprint.inventoryWorld(), footprint.inventory(), value);
+    }
+
+    public synchronized void remove(final int id) {
+        final var previous = this.footprints.remove(id);
+
+        if (previous == null)
+            return;
+
+        if (previous.world() != NONE)
+            evict(this.locations, previous.world(), previous.location(), id);
+
+        if (previous.inventoryWorld() != NONE)
+            evict(this.inventories, previous.inventoryWorld(), previous.inventory(), id);
+    }
+
+    /**
+     * Removes a location entry that was stored without a shop, but only while it still holds the expected value.
+     */
+    public synchronized void removeLocation(final int x, final int y, final int z, final String world, final V expected) {
+        if (this.locations.get(x, y, z, world) == expected)
+            this.locations.remove(x, y, z, world);
+    }
+
+    public synchronized void removeInventory(final int x, final int y, final int z, final String world, final V expected) {
+        if (this.inventories.get(x, y, z, world) == expected)
+            this.inventories.remove(x, y, z, world);
+    }
+
+    public synchronized int size() {
+        return this.footprints.size();
+    }
+
+    private void evict(final LocationIndex<V> index, final int world, final long location, final int id) {
+        final var value = index.get(world, location);
+
+        //NOTE: Only evict the entry if it still belongs to this shop, another shop may have claimed the location since.
+        if (value != null && Objects.equals(this.identity.apply(value), id))
+            index.remove(world, location);
+    }
+
+    private record Footprint(int world, long location, int inventoryWorld, long inventory) {}
+
+}
@@ -16,7 +16,9 @@ public class AuditDao<T extends Auditable> extends BaseDaoImpl<T, Integer> {
 
     @Override
     public int create(final T data) throws SQLException {
-        data.createdOn(SlabbyHelper.api().legacyNow());
+        //NOTE: Rows written in the background already carry the time they were created at.
+        if (data.createdOn() == null)
+            data.createdOn(SlabbyHelper.api().legacyNow());
         return super.create(data);
     }
 
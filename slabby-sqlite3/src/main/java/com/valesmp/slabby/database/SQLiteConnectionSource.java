@@ -0,0 +1,242 @@
+package com.valesmp.slabby.database;
+
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.db.DatabaseTypeUtils;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import com.j256.ormlite.support.BaseConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.valesmp.slabby.config.SlabbyConfig;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Connection source with a single writer connection and a fixed pool of read-only reader connections. Writes and
+ * transactions are serialized on the writer, reads outside a transaction are spread over the readers, and wait for the
+ * writer when every reader is busy. Readers only see committed data, so they are only opened in WAL mode, where they
+ * never block or get blocked by the writer.
+ * The configured pragmas are applied to every connection.
+ */
+public final class SQLiteConnectionSource extends BaseConnectionSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SQLiteConnectionSource.class);
+
+    private static final Set<String> JOURNAL_MODES = Set.of("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF");
+
+    private static final Set<String> SYNCHRONOUS_LEVELS = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+
+    private static final Set<String> TEMP_STORES = Set.of("DEFAULT", "FILE", "MEMORY");
+
+    private final String url;
+
+    private final List<Pragma> pragmas;
+
+    private final DatabaseType databaseType;
+
+    private final DatabaseConnection writer;
+
+    private final ReentrantLock writerLock = new ReentrantLock();
+
+    private final List<DatabaseConnection> readers = new ArrayList<>();
+
+    private final ConcurrentLinkedQueue<DatabaseConnection> idleReaders = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean open = true;
+
+    public SQLiteConnectionSource(final String url, final List<Pragma> pragmas, final int readers) throws SQLException {
+        this.url = url;
+        this.pragmas = pragmas;
+
+        this.databaseType = DatabaseTypeUtils.createDatabaseType(url);
+        this.databaseType.loadDriver();
+
+        this.writer = connect(false);
+
+        final var wal = pragmas.stream().anyMatch(it -> it.name().equals("journal_mode") && it.value().equals("WAL"));
+        final var readerCount = wal ? Math.max(0, readers) : 0;
+
+        for (var i = 0; i < readerCount; i++) {
+            final var reader = connect(true);
+
+            this.readers.add(reader);
+            this.idleReaders.add(reader);
+        }
+    }
+
+    /**
+     * Validates the tuning options of the database configuration. Invalid options are reported and left at the SQLite default.
+     */
+    public static List<Pragma> pragmas(final SlabbyConfig.Database config, final java.util.logging.Logger logger) {
+        final var pragmas = new ArrayList<Pragma>();
+
+        addEnum(pragmas, logger, "journal_mode", config.journalMode(), JOURNAL_MODES);
+        addEnum(pragmas, logger, "synchronous", config.synchronous(), SYNCHRONOUS_LEVELS);
+        addEnum(pragmas, logger, "temp_store", config.tempStore(), TEMP_STORES);
+
+        if (config.mmapSize() < 0)
+            logger.warning("Ignoring database mmap-size %d, it cannot be negative".formatted(config.mmapSize()));
+        else
+            pragmas.add(new Pragma("mmap_size", Long.toString(config.mmapSize())));
+
+        //NOTE: A negative cache size is in KiB, a positive one in pages, so both are valid.
+        pragmas.add(new Pragma("cache_size", Integer.toString(config.cacheSize())));
+
+        if (config.busyTimeout() < 0)
+            logger.warning("Ignoring database busy-timeout %d, it cannot be negative".formatted(config.busyTimeout()));
+        else
+            pragmas.add(new Pragma("busy_timeout", Integer.toString(config.busyTimeout())));
+
+        return pragmas;
+    }
+
+    private static void addEnum(final List<Pragma> pragmas, final java.util.logging.Logger logger, final String name, final String value, final Set<String> allowed) {
+        if (value == null)
+            return;
+
+        final var upper = value.trim().toUpperCase();
+
+        if (allowed.contains(upper))
+            pragmas.add(new Pragma(name, upper));
+        else
+            logger.warning("Ignoring database %s '%s', expected one of %s".formatted(name, value, allowed));
+    }
+
+    /**
+     * Reads back the effective value of every configured pragma, so the startup log shows what SQLite actually accepted.
+     */
+    public String describe() throws SQLException {
+        final var connection = getReadWriteConnection(null);
+
+        try {
+            final var jdbc = ((JdbcDatabaseConnection) connection).getInternalConnection();
+            final var joiner = new StringJoiner(", ");
+
+            try (final var statement = jdbc.createStatement()) {
+                for (final var pragma : this.pragmas) {
+                    try (final var result = statement.executeQuery("PRAGMA " + pragma.name())) {
+                        joiner.add(pragma.name() + "=" + (result.next() ? result.getString(1) : "?"));
+                    }
+                }
+            }
+
+            joiner.add("readers=" + this.readers.size());
+
+            return joiner.toString();
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+
+    @Override
+    public DatabaseConnection getReadOnlyConnection(final String tableName) throws SQLException {
+        //NOTE: Inside a transaction reads have to see its uncommitted writes.
+        final var saved = getSavedConnection();
+
+        if (saved != null)
+            return saved;
+
+        final var reader = this.idleReaders.poll();
+
+        if (reader != null)
+            return reader;
+
+        //NOTE: Without an idle reader the read waits for the writer like a write does. Using the writer without its lock
+        //      would join the transaction another thread has open on it, and see its uncommitted rows.
+        this.writerLock.lock();
+
+        return this.writer;
+    }
+
+    @Override
+    public DatabaseConnection getReadWriteConnection(final String tableName) throws SQLException {
+        final var saved = getSavedConnection();
+
+        if (saved != null)
+            return saved;
+
+        this.writerLock.lock();
+
+        return this.writer;
+    }
+
+    @Override
+    public void releaseConnection(final DatabaseConnection connection) {
+        if (isSavedConnection(connection))
+            return;
+
+        //NOTE: Every use of the writer, as a read or a write, holds the lock once, so each release gives up exactly one hold.
+        if (connection != this.writer)
+            this.idleReaders.offer(connection);
+        else if (this.writerLock.isHeldByCurrentThread())
+            this.writerLock.unlock();
+    }
+
+    @Override
+    public boolean saveSpecialConnection(final DatabaseConnection connection) throws SQLException {
+        return saveSpecial(connection);
+    }
+
+    @Override
+    public void clearSpecialConnection(final DatabaseConnection connection) {
+        clearSpecial(connection, LOGGER);
+    }
+
+    @Override
+    public void close() {
+        this.open = false;
+
+        this.writerLock.lock();
+
+        try {
+            this.writer.closeQuietly();
+            this.readers.forEach(DatabaseConnection::closeQuietly);
+        } finally {
+            this.writerLock.unlock();
+        }
+    }
+
+    @Override
+    public void closeQuietly() {
+        close();
+    }
+
+    @Override
+    public DatabaseType getDatabaseType() {
+        return this.databaseType;
+    }
+
+    @Override
+    public boolean isOpen(final String tableName) {
+        return this.open;
+    }
+
+    @Override
+    public boolean isSingleConnection(final String tableName) {
+        return this.readers.isEmpty();
+    }
+
+    private DatabaseConnection connect(final boolean readOnly) throws SQLException {
+        final var jdbc = DriverManager.getConnection(this.url);
+
+        try (final var statement = jdbc.createStatement()) {
+            for (final var pragma : this.pragmas)
+                statement.execute("PRAGMA " + pragma.name() + " = " + pragma.value());
+
+            if (readOnly)
+                statement.execute("PRAGMA query_only = 1");
+        }
+
+        return new JdbcDatabaseConnection(jdbc);
+    }
+
+    public record Pragma(String name, String value) {}
+
+}
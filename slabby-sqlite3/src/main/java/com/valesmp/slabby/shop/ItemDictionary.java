@@ -0,0 +1,161 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+import com.valesmp.slabby.SlabbyAPI;
+import com.valesmp.slabby.cache.LongObjectMap;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Maps serialized items to the id of their row in the items table, by the fingerprint of the item. Items are never
+ * removed, so every committed fingerprint is kept in memory and a lookup only queries the database on a miss.
+ */
+final class ItemDictionary {
+
+    private static final String FINGERPRINT = "fingerprint";
+
+    private final SlabbyAPI api;
+
+    private final Dao<SQLiteItem, Integer> dao;
+
+    private final LongObjectMap<Integer> ids = new LongObjectMap<>();
+
+    ItemDictionary(final SlabbyAPI api, final ConnectionSource connectionSource) throws SQLException {
+        this.api = api;
+        this.dao = DaoManager.createDao(connectionSource, SQLiteItem.class);
+    }
+
+    void initialize() throws SQLException {
+        TableUtils.createTableIfNotExists(this.dao.getConnectionSource(), SQLiteItem.class);
+
+        for (final var item : this.dao.queryForAll())
+            remember(item.fingerprint(), item.id());
+    }
+
+    /**
+     * Looks up the id of an item without storing it, null if no shop ever sold it.
+     */
+    Integer find(final String item) throws SQLException {
+        final var fingerprint = this.api.serialization().fingerprint(item);
+        final var id = cached(fingerprint);
+
+        return id != null ? id : query(fingerprint);
+    }
+
+    int id(final String item) throws SQLException {
+        final var fingerprint = this.api.serialization().fingerprint(item);
+        final var id = cached(fingerprint);
+
+        if (id != null)
+            return id;
+
+        //NOTE: The row may exist without being cached, when it was created inside a transaction.
+        final var existing = query(fingerprint);
+
+        if (existing != null)
+            return existing;
+
+        //NOTE: Two different items sharing a 64-bit fingerprint is not a realistic concern, the first one keeps the row.
+        final var entry = SQLiteItem.builder()
+                .fingerprint(fingerprint)
+                .item(item)
+                .build();
+
+        try {
+            this.dao.create(entry);
+        } catch (final SQLException e) {
+            //NOTE: Another thread may have created the row in the meantime, the fingerprint is unique.
+            final var created = query(fingerprint);
+
+            if (created == null)
+                throw e;
+
+            return created;
+        }
+
+        if (!inTransaction())
+            remember(fingerprint, entry.id());
+
+        return entry.id();
+    }
+
+    private synchronized Integer cached(final long fingerprint) {
+        return this.ids.get(fingerprint);
+    }
+
+    private synchronized void remember(final long fingerprint, final int id) {
+        this.ids.put(fingerprint, id);
+    }
+
+    /**
+     * Reads the id from the database. It is only cached when read outside a transaction, a row that only exists in an
+     * uncommitted transaction may still be rolled back.
+     */
+    private Integer query(final long fingerprint) throws SQLException {
+        final var item = this.dao.queryBuilder()
+                .where()
+                .eq(FINGERPRINT, fingerprint)
+                .queryForFirst();
+
+        if (item == null)
+            return null;
+
+        if (!inTransaction())
+            remember(fingerprint, item.id());
+
+        return item.id();
+    }
+
+    private boolean inTransaction() {
+        return this.dao.getConnectionSource().getSpecialConnection(this.dao.getTableName()) != null;
+    }
+
+    /**
+     * Adds the item id column to shops created before the items table existed, and fills it in. The index on the full
+     * item column is dropped, since item lookups go through the item id now.
+     */
+    void migrate(final Dao<SQLiteShop, Integer> shopDao) throws SQLException {
+        final var columns = new ArrayList<String>();
+
+        try (final var results = shopDao.queryRaw("PRAGMA table_info(shops)")) {
+            for (final var row : results)
+                columns.add(row[1]);
+        } catch (final Exception e) {
+            throw new SQLException("Error while reading the shops table", e);
+        }
+
+        if (!columns.contains(Shop.Names.ITEM_ID)) {
+            shopDao.executeRawNoArgs("ALTER TABLE shops ADD COLUMN " + Shop.Names.ITEM_ID + " INTEGER");
+            shopDao.executeRawNoArgs("CREATE INDEX IF NOT EXISTS shops_" + Shop.Names.ITEM_ID + "_idx ON shops (" + Shop.Names.ITEM_ID + ")");
+        }
+
+        shopDao.executeRawNoArgs("DROP INDEX IF EXISTS shops_item_idx");
+
+        final var items = new ArrayList<String>();
+
+        try (final var results = shopDao.queryRaw("SELECT DISTINCT " + Shop.Names.ITEM + " FROM shops WHERE " + Shop.Names.ITEM_ID + " IS NULL")) {
+            for (final var row : results)
+                items.add(row[0]);
+        } catch (final Exception e) {
+            throw new SQLException("Error while reading shop items", e);
+        }
+
+        if (items.isEmpty())
+            return;
+
+        TransactionManager.callInTransaction(this.dao.getConnectionSource(), () -> {
+            for (final var item : items)
+                shopDao.updateRaw("UPDATE shops SET " + Shop.Names.ITEM_ID + " = ? WHERE " + Shop.Names.ITEM + " = ? AND " + Shop.Names.ITEM_ID + " IS NULL", Integer.toString(id(item)), item);
+
+            return null;
+        });
+
+        this.api.logger().info("Moved %d distinct shop items into the items table".formatted(items.size()));
+    }
+
+}
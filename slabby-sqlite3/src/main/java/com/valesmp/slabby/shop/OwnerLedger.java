@@ -0,0 +1,124 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Balance per owner of revenue and sale costs that were not settled with the economy yet. Positive balances are owed to
+ * the owner, negative balances are owed by the owner. Every balance is kept in memory, there is one row per owner.
+ * Amounts are written as deltas, and only added to the memory once they are written.
+ * Amounts that are being settled with the economy are kept as pending settlements until the economy paid them out, so a
+ * crash in between never loses them.
+ */
+final class OwnerLedger {
+
+    private static final String UPSERT = "INSERT INTO owner_ledger (uniqueId, balance) VALUES (?, ?)"
+            + " ON CONFLICT (uniqueId) DO UPDATE SET balance = balance + excluded.balance";
+
+    private static final String UPSERT_PENDING = "INSERT INTO owner_settlements (uniqueId, amount) VALUES (?, ?)"
+            + " ON CONFLICT (uniqueId) DO UPDATE SET amount = amount + excluded.amount";
+
+    //NOTE: Amounts are doubles, a settlement that was paid out completely can leave a tiny remainder.
+    private static final String DELETE_SETTLED = "DELETE FROM owner_settlements WHERE abs(amount) < 0.000001";
+
+    private final Map<UUID, Double> balances = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the settlements that were still pending, they were put back on the ledger.
+     */
+    Map<UUID, Double> initialize(final ConnectionSource connectionSource) throws SQLException {
+        TableUtils.createTableIfNotExists(connectionSource, SQLiteOwnerLedger.class);
+        TableUtils.createTableIfNotExists(connectionSource, SQLiteOwnerSettlement.class);
+
+        final var settlementDao = DaoManager.createDao(connectionSource, SQLiteOwnerSettlement.class);
+        final var pending = new HashMap<UUID, Double>();
+
+        for (final var entry : settlementDao.queryForAll())
+            pending.put(entry.uniqueId(), entry.amount());
+
+        //NOTE: The server stopped before the economy confirmed these. They are settled again on the next settlement, even
+        //      though the economy may have paid them out already.
+        if (!pending.isEmpty()) {
+            TransactionManager.callInTransaction(connectionSource, () -> {
+                write(connectionSource, pending);
+                settlementDao.executeRawNoArgs("DELETE FROM owner_settlements");
+                return null;
+            });
+        }
+
+        for (final var entry : DaoManager.createDao(connectionSource, SQLiteOwnerLedger.class).queryForAll())
+            this.balances.put(entry.uniqueId(), entry.balance());
+
+        return pending;
+    }
+
+    /**
+     * Adds the amounts on the writer connection, so inside a transaction they are committed together with it.
+     */
+    void write(final ConnectionSource connectionSource, final Map<UUID, Double> amounts) throws SQLException {
+        upsert(connectionSource, UPSERT, amounts);
+    }
+
+    /**
+     * Adds the amounts to the pending settlements, and removes the settlements that were paid out completely.
+     */
+    void writePending(final ConnectionSource connectionSource, final Map<UUID, Double> amounts) throws SQLException {
+        upsert(connectionSource, UPSERT_PENDING, amounts);
+
+        final var connection = connectionSource.getReadWriteConnection("owner_settlements");
+
+        try (final var statement = ((JdbcDatabaseConnection) connection).getInternalConnection().createStatement()) {
+            statement.executeUpdate(DELETE_SETTLED);
+        } finally {
+            connectionSource.releaseConnection(connection);
+        }
+    }
+
+    private static void upsert(final ConnectionSource connectionSource, final String sql, final Map<UUID, Double> amounts) throws SQLException {
+        if (amounts.isEmpty())
+            return;
+
+        final var connection = connectionSource.getReadWriteConnection("owner_ledger");
+
+        try (final var statement = ((JdbcDatabaseConnection) connection).getInternalConnection().prepareStatement(sql)) {
+            for (final var entry : amounts.entrySet()) {
+                statement.setString(1, entry.getKey().toString());
+                statement.setDouble(2, entry.getValue());
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        } finally {
+            connectionSource.releaseConnection(connection);
+        }
+    }
+
+    void apply(final Map<UUID, Double> amounts) {
+        amounts.forEach((uniqueId, amount) -> this.balances.merge(uniqueId, amount, Double::sum));
+    }
+
+    double balance(final UUID uniqueId) {
+        return this.balances.getOrDefault(uniqueId, 0d);
+    }
+
+    Map<UUID, Double> balances() {
+        final var result = new HashMap<UUID, Double>();
+
+        this.balances.forEach((uniqueId, balance) -> {
+            if (balance != 0)
+                result.put(uniqueId, balance);
+        });
+
+        return result;
+    }
+
+}
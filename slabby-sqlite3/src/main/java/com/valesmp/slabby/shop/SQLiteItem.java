@@ -0,0 +1,29 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+import lombok.*;
+import lombok.experimental.Accessors;
+
+/**
+ * A distinct shop item, stored once and referenced by every shop selling it.
+ */
+@Builder
+@DatabaseTable(tableName = "items")
+@Accessors(fluent = true, chain = false)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public final class SQLiteItem {
+
+    @DatabaseField(generatedId = true)
+    private int id;
+
+    @DatabaseField(canBeNull = false, unique = true)
+    private long fingerprint;
+
+    @DatabaseField(canBeNull = false)
+    private String item;
+
+}
@@ -0,0 +1,29 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.util.UUID;
+
+/**
+ * Only written by {@link OwnerLedger}, which adds to existing rows with raw upserts.
+ */
+@DatabaseTable(tableName = "owner_ledger")
+@Accessors(fluent = true, chain = false)
+@Getter
+@NoArgsConstructor
+public final class SQLiteOwnerLedger {
+
+    @DatabaseField(generatedId = true)
+    private int id;
+
+    @DatabaseField(canBeNull = false, unique = true)
+    private UUID uniqueId;
+
+    @DatabaseField(canBeNull = false)
+    private double balance;
+
+}
@@ -9,8 +9,10 @@ import com.valesmp.slabby.dao.ShopDao;
 import lombok.*;
 import lombok.experimental.Accessors;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 @DatabaseTable(tableName = "shops", daoClass = ShopDao.class)
@@ -31,9 +33,12 @@ public final class SQLiteShop implements Shop {
         return (T) (Integer) this.id;
     }
 
-    @DatabaseField(canBeNull = false, index = true)
+    @DatabaseField(canBeNull = false)
     private String item;
 
+    @DatabaseField(canBeNull = true, index = true)
+    private Integer itemId;
+
     @DatabaseField(canBeNull = true, uniqueIndexName = "location")
     private Integer x;
 
@@ -82,6 +87,16 @@ public final class SQLiteShop implements Shop {
     @ForeignCollectionField(eager = false)
     private ForeignCollection<SQLiteShopLog> logs;
 
+    //NOTE: Not persisted, built from the owners on first use and dropped whenever they are written.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile ShopShares shares;
+
+    //NOTE: Counts the invalidations, so shares that were being built while the owners changed are never kept.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long sharesGeneration;
+
     @DatabaseField(canBeNull = false)
     private Date createdOn;
 
@@ -94,6 +109,9 @@ public final class SQLiteShop implements Shop {
     @DatabaseField(canBeNull = true)
     private UUID displayEntityId;
 
+    @DatabaseField(canBeNull = false, defaultValue = "0")
+    private int version;
+
     @Override
     public void location(final Integer x, final Integer y, final Integer z, final String world) {
         this.x = x;
@@ -124,7 +142,48 @@ public final class SQLiteShop implements Shop {
 
     @Override
     public boolean isOwner(final UUID uniqueId) {
-        return this.owners.stream().anyMatch(it -> it.uniqueId().equals(uniqueId));
+        return shares().contains(uniqueId);
+    }
+
+    @Override
+    public ShopShares shares() {
+        //NOTE: A shop that was never stored has no owners yet.
+        if (this.owners == null)
+            return ShopShares.of(List.of());
+
+        final long generation;
+
+        synchronized (this) {
+            if (this.shares != null)
+                return this.shares;
+
+            generation = this.sharesGeneration;
+        }
+
+        //NOTE: The iterator is closed explicitly, the collection is lazy and would keep its connection otherwise.
+        final var owners = new ArrayList<SQLiteShopOwner>();
+        final var iterator = this.owners.closeableIterator();
+
+        try {
+            iterator.forEachRemaining(owners::add);
+        } finally {
+            iterator.closeQuietly();
+        }
+
+        final var shares = ShopShares.of(owners);
+
+        synchronized (this) {
+            //NOTE: Owners that changed while they were read may not be part of these shares, the next call reads them again.
+            if (this.sharesGeneration == generation)
+                this.shares = shares;
+        }
+
+        return shares;
+    }
+
+    synchronized void invalidateShares() {
+        this.sharesGeneration++;
+        this.shares = null;
     }
 
     @Override
@@ -132,6 +191,36 @@ public final class SQLiteShop implements Shop {
         return this.note == null ? SlabbyHelper.api().configuration().defaults().note() : this.note;
     }
 
+    /**
+     * Copies the persisted columns, so the copy can be written from another thread while this shop keeps changing.
+     */
+    SQLiteShop snapshot() {
+        return SQLiteShop.builder()
+                .id(this.id)
+                .item(this.item)
+                .itemId(this.itemId)
+                .x(this.x)
+                .y(this.y)
+                .z(this.z)
+                .world(this.world)
+                .buyPrice(this.buyPrice)
+                .sellPrice(this.sellPrice)
+                .quantity(this.quantity)
+                .stock(this.stock)
+                .note(this.note)
+                .name(this.name)
+                .inventoryX(this.inventoryX)
+                .inventoryY(this.inventoryY)
+                .inventoryZ(this.inventoryZ)
+                .inventoryWorld(this.inventoryWorld)
+                .createdOn(this.createdOn)
+                .lastModifiedOn(this.lastModifiedOn)
+                .state(this.state)
+                .displayEntityId(this.displayEntityId)
+                .version(this.version)
+                .build();
+    }
+
     public static final class SQLiteShopBuilder implements Shop.Builder {
 
         @Override
@@ -1,5 +1,6 @@
 package com.valesmp.slabby.shop;
 
+import com.j256.ormlite.field.DataType;
 import com.j256.ormlite.field.DatabaseField;
 import com.j256.ormlite.table.DatabaseTable;
 import com.valesmp.slabby.dao.AuditDao;
@@ -18,10 +19,19 @@ import java.util.UUID;
 @AllArgsConstructor
 public final class SQLiteShopLog implements ShopLog {
 
+    //NOTE: Backs the keyset pagination of the logs of a shop, newest first. The id is the rowid, so every entry holds it too.
+    static final String PAGE_INDEX = "shop_logs_shop_created_idx";
+
     @DatabaseField(generatedId = true)
     private int id;
 
-    @DatabaseField(foreign = true, foreignAutoRefresh = true)
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T id() {
+        return (T) (Integer) this.id;
+    }
+
+    @DatabaseField(foreign = true, foreignAutoRefresh = true, indexName = PAGE_INDEX)
     private SQLiteShop shop;
 
     @DatabaseField(canBeNull = true)
@@ -33,7 +43,10 @@ public final class SQLiteShopLog implements ShopLog {
     @DatabaseField(canBeNull = true)
     private String data;
 
-    @DatabaseField(canBeNull = false)
+    @DatabaseField(canBeNull = true, dataType = DataType.BYTE_ARRAY)
+    private byte[] payload;
+
+    @DatabaseField(canBeNull = false, indexName = PAGE_INDEX)
     private Date createdOn;
 
     @DatabaseField(canBeNull = true)
@@ -0,0 +1,55 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDate;
+
+/**
+ * Only written by {@link ShopLogRetention}, which adds to existing rows with raw upserts.
+ */
+@DatabaseTable(tableName = "shop_log_rollups")
+@Accessors(fluent = true, chain = false)
+@Getter
+@NoArgsConstructor
+public final class SQLiteShopLogRollup implements ShopLogRollup {
+
+    @DatabaseField(generatedId = true)
+    private int id;
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T id() {
+        return (T) (Integer) this.id;
+    }
+
+    @DatabaseField(foreign = true, canBeNull = false, uniqueCombo = true)
+    private SQLiteShop shop;
+
+    //NOTE: Stored as epoch day, so the upsert does not depend on how dates are bound.
+    @Getter(AccessLevel.NONE)
+    @DatabaseField(canBeNull = false, uniqueCombo = true)
+    private long day;
+
+    @Override
+    public LocalDate day() {
+        return LocalDate.ofEpochDay(this.day);
+    }
+
+    @DatabaseField(canBeNull = false, uniqueCombo = true)
+    private ShopLog.Action action;
+
+    @DatabaseField(canBeNull = false)
+    private int count;
+
+    @DatabaseField(canBeNull = false)
+    private long quantity;
+
+    @DatabaseField(canBeNull = false)
+    private double amount;
+
+}
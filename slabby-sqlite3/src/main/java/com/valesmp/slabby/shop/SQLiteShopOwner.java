@@ -36,6 +36,14 @@ public final class SQLiteShopOwner implements ShopOwner {
     @DatabaseField(canBeNull = true)
     private Date lastModifiedOn;
 
-    public static final class SQLiteShopOwnerBuilder implements ShopOwner.Builder {}
+    public static final class SQLiteShopOwnerBuilder implements ShopOwner.Builder {
+
+        @Override
+        public ShopOwner.Builder shop(final Shop shop) {
+            this.shop = (SQLiteShop) shop;
+            return this;
+        }
+
+    }
 
 }
@@ -2,33 +2,67 @@ package com.valesmp.slabby.shop;
 
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
-import com.j256.ormlite.jdbc.JdbcConnectionSource;
 import com.j256.ormlite.misc.TransactionManager;
-import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.stmt.SelectArg;
 import com.j256.ormlite.table.TableUtils;
 import com.valesmp.slabby.SlabbyAPI;
+import com.valesmp.slabby.cache.ChunkIndex;
+import com.valesmp.slabby.cache.MarketIndex;
 import com.valesmp.slabby.cache.ShopCache;
+import com.valesmp.slabby.cache.ShopLocationIndex;
+import com.valesmp.slabby.database.SQLiteConnectionSource;
 import com.valesmp.slabby.exception.SlabbyException;
+import com.valesmp.slabby.exception.StaleShopException;
 import com.valesmp.slabby.exception.UnrecoverableException;
 
 import java.io.Closeable;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.function.Function;
 
 public final class SQLiteShopRepository implements ShopRepository, Closeable {
 
+    private static final int LOG_BUFFER_CAPACITY = 4096;
+
     @SuppressWarnings("FieldCanBeLocal")
     private final SlabbyAPI api;
 
-    private final ConnectionSource connectionSource;
+    private final SQLiteConnectionSource connectionSource;
 
     private final Dao<SQLiteShop, Integer> shopDao;
     private final Dao<SQLiteShopOwner, Integer> shopOwnerDao;
     private final Dao<SQLiteShopLog, Integer> shopLogDao;
+    private final Dao<SQLiteShopLogRollup, Integer> shopLogRollupDao;
 
     private final ShopCache shopCache;
 
+    private final ShopQueries queries;
+
+    private final ItemDictionary items;
+
+    private final ChunkIndex chunkIndex = new ChunkIndex();
+
+    private final MarketIndex marketIndex = new MarketIndex();
+
+    //NOTE: Only present in resident index mode, in which case it is authoritative for every active shop and inventory location.
+    private final ShopLocationIndex<Integer> residentIndex;
+
+    private final ShopLogAppender logAppender;
+
+    private final ShopLogMigration logMigration;
+
+    private final OwnerLedger ledger = new OwnerLedger();
+
+    //NOTE: Only present in write-behind mode.
+    private final WriteBehindQueue writeBehind;
+
+    //NOTE: Shops whose owners were written in the transaction of this thread, their shares are dropped again once it ended.
+    private final ThreadLocal<Set<SQLiteShop>> ownersChanged = new ThreadLocal<>();
+
+    //NOTE: Only present when log retention is enabled, it is started once the tables exist.
+    private ShopLogRetention retention;
+
     @Override
     public Cache shopCache() {
         return this.shopCache;
@@ -37,23 +71,201 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
     public SQLiteShopRepository(final SlabbyAPI api) throws SQLException {
         this.api = api;
 
-        this.connectionSource = new JdbcConnectionSource(api.configuration().database().url());
+        final var pragmas = SQLiteConnectionSource.pragmas(api.configuration().database(), api.logger());
+
+        this.connectionSource = new SQLiteConnectionSource(api.configuration().database().url(), pragmas, api.configuration().database().readers());
 
         this.shopDao = DaoManager.createDao(this.connectionSource, SQLiteShop.class);
         this.shopOwnerDao = DaoManager.createDao(this.connectionSource, SQLiteShopOwner.class);
         this.shopLogDao = DaoManager.createDao(this.connectionSource, SQLiteShopLog.class);
+        this.shopLogRollupDao = DaoManager.createDao(this.connectionSource, SQLiteShopLogRollup.class);
+
+        this.shopCache = new ShopCache(this.shopDao, api.configuration().database().shopCacheCapacity());
+
+        this.queries = new ShopQueries(this.shopDao);
+
+        this.items = new ItemDictionary(api, this.connectionSource);
 
-        this.shopCache = new ShopCache(this.shopDao);
+        this.residentIndex = api.configuration().database().residentIndex() ? new ShopLocationIndex<>(Function.identity()) : null;
+
+        this.logAppender = new ShopLogAppender(api, this.shopLogDao, LOG_BUFFER_CAPACITY);
+        this.logMigration = new ShopLogMigration(api, this.connectionSource);
+
+        final var writeBehind = api.configuration().database().writeBehind();
+
+        this.writeBehind = writeBehind != null && writeBehind.enabled()
+                ? new WriteBehindQueue(api, this.logAppender, this.ledger, this.connectionSource, writeBehind.interval(), writeBehind.batchSize())
+                : null;
     }
 
     public void initialize() throws SQLException {
+        this.api.logger().info("SQLite settings: " + this.connectionSource.describe());
+
         TableUtils.createTableIfNotExists(this.connectionSource, SQLiteShop.class);
         TableUtils.createTableIfNotExists(this.connectionSource, SQLiteShopOwner.class);
         TableUtils.createTableIfNotExists(this.connectionSource, SQLiteShopLog.class);
+        TableUtils.createTableIfNotExists(this.connectionSource, SQLiteShopLogRollup.class);
+
+        this.logMigration.prepare(this.shopLogDao);
+
+        final var recovered = this.ledger.initialize(this.connectionSource);
+
+        //NOTE: Settlement is at-least-once, the economy may have paid these out before the server stopped. Every entry is
+        //      logged, so they can be checked against the economy and corrected by hand.
+        recovered.forEach((uniqueId, amount) -> this.api.logger().warning(
+                "Settlement of %.4f for %s was not confirmed by the economy and was put back on the owner ledger".formatted(amount, uniqueId)));
+
+        this.items.initialize();
+        this.items.migrate(this.shopDao);
+
+        migrateVersion();
+
+        //NOTE: Log tables created before the index existed do not get it from createTableIfNotExists.
+        this.shopLogDao.executeRawNoArgs("CREATE INDEX IF NOT EXISTS " + SQLiteShopLog.PAGE_INDEX + " ON shop_logs (" + ShopLog.Names.SHOP_ID + ", " + ShopLog.Names.CREATED_ON + ")");
+
+        loadLocations();
+
+        this.logMigration.start(this.shopLogDao);
+
+        final var retention = this.api.configuration().database().retention();
+
+        if (retention != null && retention.enabled())
+            this.retention = new ShopLogRetention(this.api, this.connectionSource, retention);
+    }
+
+    /**
+     * Adds the version column to shops created before trades were compare-and-set.
+     */
+    private void migrateVersion() throws SQLException {
+        final var columns = new ArrayList<String>();
+
+        try (final var results = this.shopDao.queryRaw("PRAGMA table_info(shops)")) {
+            for (final var row : results)
+                columns.add(row[1]);
+        } catch (final Exception e) {
+            throw new SQLException("Error while reading the shops table", e);
+        }
+
+        if (!columns.contains(Shop.Names.VERSION))
+            this.shopDao.executeRawNoArgs("ALTER TABLE shops ADD COLUMN " + Shop.Names.VERSION + " INTEGER NOT NULL DEFAULT 0");
+    }
+
+    private void loadLocations() throws SQLException {
+        final var query = this.shopDao.queryBuilder()
+                .selectColumns(Shop.Names.ID,
+                        Shop.Names.X, Shop.Names.Y, Shop.Names.Z, Shop.Names.WORLD,
+                        Shop.Names.INVENTORY_X, Shop.Names.INVENTORY_Y, Shop.Names.INVENTORY_Z, Shop.Names.INVENTORY_WORLD,
+                        Shop.Names.ITEM_ID, Shop.Names.BUY_PRICE, Shop.Names.SELL_PRICE, Shop.Names.QUANTITY, Shop.Names.STOCK)
+                .where()
+                .eq(Shop.Names.STATE, new SelectArg())
+                .queryBuilder()
+                .prepareStatementString();
+
+        //NOTE: Raw rows are used on purpose, partially loaded shops must never end up in the object cache.
+        try (final var results = this.shopDao.queryRaw(query, Shop.State.ACTIVE.name())) {
+            for (final var row : results) {
+                final var id = Integer.parseInt(row[0]);
+
+                final var shop = SQLiteShop.builder()
+                        .id(id)
+                        .state(Shop.State.ACTIVE)
+                        .location(parseInteger(row[1]), parseInteger(row[2]), parseInteger(row[3]), row[4])
+                        .inventory(parseInteger(row[5]), parseInteger(row[6]), parseInteger(row[7]), row[8])
+                        .itemId(parseInteger(row[9]))
+                        .buyPrice(parseDouble(row[10]))
+                        .sellPrice(parseDouble(row[11]))
+                        .quantity(Integer.parseInt(row[12]))
+                        .stock(parseInteger(row[13]))
+                        .build();
+
+                this.chunkIndex.store(shop, id);
+                this.marketIndex.store(shop, id, shop.itemId());
+
+                if (this.residentIndex != null)
+                    this.residentIndex.store(shop, id, id);
+            }
+        } catch (final Exception e) {
+            throw new SQLException("Error while loading shop locations", e);
+        }
+
+        this.api.logger().info("Indexed shops in %d chunks".formatted(this.chunkIndex.size()));
+        this.api.logger().info("Indexed %d shops in the market index".formatted(this.marketIndex.size()));
+
+        if (this.residentIndex != null)
+            this.api.logger().info("Loaded %d shops into the resident index".formatted(this.residentIndex.size()));
+    }
+
+    private static Integer parseInteger(final String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    private static Double parseDouble(final String value) {
+        return value == null ? null : Double.valueOf(value);
+    }
+
+    private void assignItem(final SQLiteShop shop) throws SQLException {
+        if (shop.itemId() == null)
+            shop.itemId(this.items.id(shop.item()));
+    }
+
+    private void invalidateShares(final SQLiteShopOwner shopOwner) {
+        final var shop = shopOwner.shop();
+
+        if (shop == null)
+            return;
+
+        invalidateShares(shop);
+
+        //NOTE: Other threads could build the shares again from the old owners until the transaction is committed.
+        final var changed = this.ownersChanged.get();
+
+        if (changed != null)
+            changed.add(shop);
+    }
+
+    private void invalidateShares(final SQLiteShop shop) {
+        shop.invalidateShares();
+
+        //NOTE: The owner refers to its own copy of the shop, the cached one is the one trades read from.
+        final var cached = this.shopCache.byId(shop.<Integer>id());
+
+        if (cached != null && cached != shop)
+            cached.invalidateShares();
+    }
+
+    private void index(final Shop shop) {
+        final int id = shop.id();
+
+        //NOTE: Only active shops can be found by location, so there is no reason to keep the others in memory.
+        if (shop.state() == Shop.State.ACTIVE)
+            this.shopCache.store(shop);
+        else
+            this.shopCache.invalidate(id);
+
+        this.chunkIndex.store(shop, id);
+        this.marketIndex.store(shop, id, ((SQLiteShop) shop).itemId());
+
+        if (this.residentIndex != null)
+            this.residentIndex.store(shop, id, id);
     }
 
     @Override
     public void close() {
+        this.logMigration.close();
+
+        if (this.retention != null)
+            this.retention.close();
+
+        //NOTE: Pending changes have to be written before the connection used by the main thread goes away.
+        if (this.writeBehind != null)
+            this.writeBehind.close();
+
+        try {
+            this.logAppender.drain(this.connectionSource);
+        } catch (final SQLException e) {
+            this.api.exceptionService().logToConsole("Error while writing remaining shop logs", e);
+        }
+
         try {
             this.connectionSource.close();
         } catch (final Exception e) {
@@ -78,14 +290,20 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
 
     @Override
     public void createOrUpdate(final Shop shop) throws SlabbyException {
+        if (this.writeBehind != null)
+            this.writeBehind.discard((SQLiteShop) shop);
+
         try {
+            assignItem((SQLiteShop) shop);
             this.shopDao.createOrUpdate((SQLiteShop) shop);
             this.shopDao.refresh((SQLiteShop) shop); //NOTE: Required because the owners collection is not eagerly loaded
         } catch (final SQLException e) {
             throw new UnrecoverableException("Error while inserting or updating shop", e);
         }
 
-        this.shopCache.store(shop);
+        ((SQLiteShop) shop).invalidateShares();
+
+        index(shop);
     }
 
     @Override
@@ -95,7 +313,15 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
         } catch (final SQLException e) {
             throw new UnrecoverableException("Error while deleting shop", e);
         }
-        //TODO: Remove from cache. When shops can actually be deleted in the future, we need to check if the result from the cache is not null.
+
+        final int id = shop.id();
+
+        this.shopCache.invalidate(id);
+        this.chunkIndex.remove(id);
+        this.marketIndex.remove(id);
+
+        if (this.residentIndex != null)
+            this.residentIndex.remove(id);
     }
 
     @Override
@@ -105,6 +331,8 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
         } catch (final SQLException e) {
             throw new UnrecoverableException("Error while deleting shop owner", e);
         }
+
+        invalidateShares((SQLiteShopOwner) shopOwner);
     }
 
     @Override
@@ -114,16 +342,285 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
         } catch (final SQLException e) {
             throw new UnrecoverableException("Error while inserting or updating shop owner", e);
         }
+
+        invalidateShares((SQLiteShopOwner) shopOwner);
     }
 
     @Override
     public void update(final Shop shop) throws SlabbyException {
+        final var sqliteShop = (SQLiteShop) shop;
+
         try {
-            this.shopDao.update((SQLiteShop) shop);
+            assignItem(sqliteShop);
+            write(sqliteShop);
         } catch (final SQLException e) {
             throw new UnrecoverableException("Error while updating shop", e);
         }
-        this.shopCache.store(shop);
+        index(shop);
+    }
+
+    /**
+     * Writes a change that is not a trade. In write-behind mode the in-memory shop is authoritative, so its whole row is
+     * written. Otherwise the stock is left alone, only trades write it with a version check.
+     */
+    private void write(final SQLiteShop shop) throws SQLException {
+        if (this.writeBehind != null) {
+            this.writeBehind.discard(shop);
+            shop.version(shop.version() + 1);
+            this.shopDao.update(shop);
+            return;
+        }
+
+        final var now = this.api.legacyNow();
+
+        final var builder = this.shopDao.updateBuilder();
+
+        //NOTE: The version is raised in the database itself, a trade that read the shop before this write is rejected and
+        //      validated again against the shop as it is now. Values are bound, notes and names are player input.
+        builder.updateColumnValue(Shop.Names.ITEM, new SelectArg(shop.item()))
+                .updateColumnValue(Shop.Names.ITEM_ID, new SelectArg(shop.itemId()))
+                .updateColumnValue(Shop.Names.X, new SelectArg(shop.x()))
+                .updateColumnValue(Shop.Names.Y, new SelectArg(shop.y()))
+                .updateColumnValue(Shop.Names.Z, new SelectArg(shop.z()))
+                .updateColumnValue(Shop.Names.WORLD, new SelectArg(shop.world()))
+                .updateColumnValue(Shop.Names.BUY_PRICE, new SelectArg(shop.buyPrice()))
+                .updateColumnValue(Shop.Names.SELL_PRICE, new SelectArg(shop.sellPrice()))
+                .updateColumnValue(Shop.Names.QUANTITY, new SelectArg(shop.quantity()))
+                .updateColumnValue(Shop.Names.NOTE, new SelectArg(shop.note()))
+                .updateColumnValue(Shop.Names.NAME, new SelectArg(shop.name()))
+                .updateColumnValue(Shop.Names.INVENTORY_X, new SelectArg(shop.inventoryX()))
+                .updateColumnValue(Shop.Names.INVENTORY_Y, new SelectArg(shop.inventoryY()))
+                .updateColumnValue(Shop.Names.INVENTORY_Z, new SelectArg(shop.inventoryZ()))
+                .updateColumnValue(Shop.Names.INVENTORY_WORLD, new SelectArg(shop.inventoryWorld()))
+                .updateColumnValue(Shop.Names.STATE, new SelectArg(shop.state()))
+                .updateColumnValue(Shop.Names.DISPLAY_ENTITY_ID, new SelectArg(shop.displayEntityId()))
+                .updateColumnValue(Shop.Names.LAST_MODIFIED_ON, new SelectArg(now))
+                .updateColumnExpression(Shop.Names.VERSION, builder.escapeColumnName(Shop.Names.VERSION) + " + 1")
+                .where()
+                .eq(Shop.Names.ID, shop.<Integer>id());
+
+        builder.update();
+
+        //NOTE: When another write raised the version in the meantime, the next trade finds it stale and reloads the shop.
+        shop.version(shop.version() + 1);
+        shop.lastModifiedOn(now);
+    }
+
+    @Override
+    public void update(final Shop shop, final ShopLog log) throws SlabbyException {
+        update(shop, log, Map.of());
+    }
+
+    @Override
+    public void update(final Shop shop, final ShopLog log, final Map<UUID, Double> ledger) throws SlabbyException {
+        final var sqliteShop = (SQLiteShop) shop;
+
+        if (this.writeBehind != null) {
+            sqliteShop.version(sqliteShop.version() + 1);
+            this.writeBehind.update(sqliteShop);
+            this.writeBehind.ledger(ledger);
+            this.ledger.apply(ledger);
+            this.log(shop, log);
+            index(shop);
+            return;
+        }
+
+        final var written = this.<Boolean>transaction(() -> {
+            if (!compareAndSet(sqliteShop))
+                return false;
+
+            this.ledger.write(this.connectionSource, ledger);
+            this.log(shop, log);
+            return true;
+        });
+
+        if (!written) {
+            //NOTE: Drops the change that was based on the stale read, the caller validates against the current state.
+            refresh(shop);
+            throw new StaleShopException();
+        }
+
+        this.ledger.apply(ledger);
+
+        index(shop);
+    }
+
+    @Override
+    public void ledger(final Map<UUID, Double> amounts) throws SlabbyException {
+        this.transaction(() -> {
+            this.ledger.write(this.connectionSource, amounts);
+            return null;
+        });
+
+        this.ledger.apply(amounts);
+    }
+
+    @Override
+    public void beginSettlement(final Map<UUID, Double> amounts) throws SlabbyException {
+        final var booked = new HashMap<UUID, Double>();
+
+        amounts.forEach((uniqueId, amount) -> booked.put(uniqueId, -amount));
+
+        this.transaction(() -> {
+            this.ledger.write(this.connectionSource, booked);
+            this.ledger.writePending(this.connectionSource, amounts);
+            return null;
+        });
+
+        this.ledger.apply(booked);
+    }
+
+    @Override
+    public void completeSettlement(final Map<UUID, Double> amounts) throws SlabbyException {
+        final var settled = new HashMap<UUID, Double>();
+
+        amounts.forEach((uniqueId, amount) -> settled.put(uniqueId, -amount));
+
+        this.transaction(() -> {
+            this.ledger.writePending(this.connectionSource, settled);
+            return null;
+        });
+    }
+
+    @Override
+    public void cancelSettlement(final Map<UUID, Double> amounts) throws SlabbyException {
+        final var cancelled = new HashMap<UUID, Double>();
+
+        amounts.forEach((uniqueId, amount) -> cancelled.put(uniqueId, -amount));
+
+        this.transaction(() -> {
+            this.ledger.writePending(this.connectionSource, cancelled);
+            this.ledger.write(this.connectionSource, amounts);
+            return null;
+        });
+
+        this.ledger.apply(amounts);
+    }
+
+    @Override
+    public double ledgerBalance(final UUID uniqueId) {
+        return this.ledger.balance(uniqueId);
+    }
+
+    @Override
+    public Map<UUID, Double> ledgerBalances() {
+        return this.ledger.balances();
+    }
+
+    /**
+     * Writes the stock if the version in the database is still the one the shop was read with. No read is needed, the
+     * update simply matches no row when someone else wrote the shop in the meantime.
+     */
+    private boolean compareAndSet(final SQLiteShop shop) throws SQLException {
+        final var version = shop.version();
+        final var now = this.api.legacyNow();
+
+        final var builder = this.shopDao.updateBuilder();
+
+        builder.updateColumnValue(Shop.Names.STOCK, shop.stock())
+                .updateColumnValue(Shop.Names.VERSION, version + 1)
+                .updateColumnValue(Shop.Names.LAST_MODIFIED_ON, now)
+                .where()
+                .eq(Shop.Names.ID, shop.<Integer>id())
+                .and()
+                .eq(Shop.Names.VERSION, version);
+
+        if (builder.update() == 0)
+            return false;
+
+        shop.version(version + 1);
+        shop.lastModifiedOn(now);
+
+        return true;
+    }
+
+    @Override
+    public void log(final Shop shop, final ShopLog log) throws SlabbyException {
+        final var entry = (SQLiteShopLog) log;
+
+        entry.shop((SQLiteShop) shop);
+
+        this.logAppender.append(entry);
+
+        //NOTE: Inside a transaction the logs are written when it commits.
+        if (this.logAppender.inTransaction())
+            return;
+
+        //NOTE: In write-behind mode a full buffer only wakes the background writer, the caller never writes.
+        if (this.writeBehind != null) {
+            this.writeBehind.requestFlushIfFull();
+            return;
+        }
+
+        try {
+            this.logAppender.drain(this.connectionSource);
+        } catch (final SQLException e) {
+            throw new UnrecoverableException("Error while writing shop log", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<ShopLog> logs(final Shop shop, final ShopLog after, final int limit) throws SlabbyException {
+        try {
+            //NOTE: The newest logs may still be buffered, they have to be written before the first page is read.
+            if (after == null)
+                this.logAppender.drain(this.connectionSource);
+
+            final var builder = this.shopLogDao.queryBuilder();
+            final var where = builder.where();
+
+            if (after == null) {
+                where.eq(ShopLog.Names.SHOP_ID, shop.id());
+            } else {
+                where.and(where.eq(ShopLog.Names.SHOP_ID, shop.id()), where.or(
+                        where.lt(ShopLog.Names.CREATED_ON, after.createdOn()),
+                        where.and(where.eq(ShopLog.Names.CREATED_ON, after.createdOn()), where.lt(ShopLog.Names.ID, after.id()))));
+            }
+
+            final var result = builder
+                    .orderBy(ShopLog.Names.CREATED_ON, false)
+                    .orderBy(ShopLog.Names.ID, false)
+                    .limit((long) limit)
+                    .query();
+
+            return (List<ShopLog>) (List<? extends ShopLog>) result;
+        } catch (final SQLException e) {
+            throw new UnrecoverableException("Error while retrieving shop logs", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<ShopLogRollup> rollups(final Shop shop, final ShopLogRollup after, final int limit) throws SlabbyException {
+        try {
+            final var builder = this.shopLogRollupDao.queryBuilder();
+            final var where = builder.where();
+
+            if (after == null) {
+                where.eq(ShopLogRollup.Names.SHOP_ID, shop.id());
+            } else {
+                final var day = after.day().toEpochDay();
+
+                where.and(where.eq(ShopLogRollup.Names.SHOP_ID, shop.id()), where.or(
+                        where.lt(ShopLogRollup.Names.DAY, day),
+                        where.and(where.eq(ShopLogRollup.Names.DAY, day), where.lt(ShopLogRollup.Names.ID, after.id()))));
+            }
+
+            final var result = builder
+                    .orderBy(ShopLogRollup.Names.DAY, false)
+                    .orderBy(ShopLogRollup.Names.ID, false)
+                    .limit((long) limit)
+                    .query();
+
+            return (List<ShopLogRollup>) (List<? extends ShopLogRollup>) result;
+        } catch (final SQLException e) {
+            throw new UnrecoverableException("Error while retrieving shop log rollups", e);
+        }
+    }
+
+    public ShopLogAppender logAppender() {
+        return this.logAppender;
     }
 
     @Override
@@ -133,15 +630,23 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
         } catch (final SQLException e) {
             throw new UnrecoverableException("Error while updating shop owner", e);
         }
+
+        invalidateShares((SQLiteShopOwner) shopOwner);
     }
 
     @Override
     public void refresh(final Shop shop) throws SlabbyException {
+        //NOTE: The in-memory state is newer than the database until the background writer caught up.
+        if (this.writeBehind != null && this.writeBehind.isPending((SQLiteShop) shop))
+            return;
+
         try {
             this.shopDao.refresh((SQLiteShop) shop);
         } catch (final SQLException e) {
             throw new UnrecoverableException("Error while refreshing shop", e);
         }
+
+        ((SQLiteShop) shop).invalidateShares();
     }
 
     @Override
@@ -155,18 +660,6 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
 
     @Override
     public void markAsDeleted(final UUID uniqueId, final Shop shop) throws SlabbyException {
-        final var hasLocation = shop.hasLocation();
-        final var x = shop.x();
-        final var y = shop.y();
-        final var z = shop.z();
-        final var world = shop.world();
-
-        final var hasInventory = shop.hasInventory();
-        final var inventoryX = shop.inventoryX();
-        final var inventoryY = shop.inventoryY();
-        final var inventoryZ = shop.inventoryZ();
-        final var inventoryWorld = shop.inventoryWorld();
-
         shop.state(Shop.State.DELETED);
         shop.location(null, null, null, null);
 
@@ -175,7 +668,7 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
         shop.inventory(null, null, null, null);
 
         this.transaction(() -> {
-            this.shopDao.update((SQLiteShop) shop);
+            write((SQLiteShop) shop);
 
             final var log = api.repository()
                     .<ShopLog.Builder>builder(ShopLog.Builder.class)
@@ -183,52 +676,34 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
                     .uniqueId(uniqueId)
                     .build();
 
-            shop.logs().add(log);
+            this.log(shop, log);
 
             return null;
         });
 
-        if (hasLocation)
-            this.shopCache.delete(x, y, z, world);
-
-        if (hasInventory)
-            this.shopCache.delete(inventoryX, inventoryY, inventoryZ, inventoryWorld);
+        index(shop);
     }
 
     @Override
     public Optional<Shop> shopAt(final int x, final int y, final int z, final String world) throws SlabbyException {
-        final var cached = this.shopCache.get(x, y, z, world);
+        if (!this.chunkIndex.containsBlock(x, z, world))
+            return Optional.empty();
 
-        if (cached != null) {
-            if (cached.hasIdentity()) {
-                final var shop = cached.get();
+        if (this.residentIndex != null)
+            return shopById(this.residentIndex.location(x, y, z, world));
 
-                //NOTE: Because the cache can return a shop by inventory or shop location, we need to check if this is actually the shop's location.
-                if (shop.isAt(x, y, z, world))
-                    return Optional.of(shop);
+        final var cached = this.shopCache.location(x, y, z, world);
 
-                if (!shop.isInventoryAt(x, y, z, world))
-                    this.shopCache.delete(x, y, z, world);
-            } else {
-                return Optional.empty();
-            }
-        }
+        if (cached != null)
+            return cached.hasIdentity() ? Optional.of(cached.get()) : Optional.empty();
 
         try {
-            final var result = this.shopDao.queryBuilder()
-                    .where()
-                    .eq(Shop.Names.STATE, Shop.State.ACTIVE)
-                    .and()
-                    .eq(Shop.Names.X, x)
-                    .and()
-                    .eq(Shop.Names.Y, y)
-                    .and()
-                    .eq(Shop.Names.Z, z)
-                    .and()
-                    .eq(Shop.Names.WORLD, world)
-                    .queryForFirst();
-
-            this.shopCache.store(x, y, z, world, result);
+            final var result = this.queries.location(x, y, z, world);
+
+            if (result != null)
+                this.shopCache.store(result);
+            else
+                this.shopCache.storeMissingLocation(x, y, z, world);
 
             return Optional.ofNullable(result);
         } catch (final SQLException e) {
@@ -238,39 +713,24 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
 
     @Override
     public Optional<Shop> shopWithInventoryAt(final int x, final int y, final int z, final String world) throws SlabbyException {
-        final var cached = this.shopCache.get(x, y, z, world);
+        if (!this.chunkIndex.containsBlock(x, z, world))
+            return Optional.empty();
 
-        if (cached != null) {
-            if (cached.hasIdentity()) {
-                final var shop = cached.get();
+        if (this.residentIndex != null)
+            return shopById(this.residentIndex.inventory(x, y, z, world));
 
-                //NOTE: Because the cache can return a shop by inventory or shop location, we need to check if this is actually the inventory location
-                if (shop.isInventoryAt(x, y, z, world)) {
-                    return Optional.of(shop);
-                }
+        final var cached = this.shopCache.inventory(x, y, z, world);
 
-                if (!shop.isAt(x, y, z, world))
-                    this.shopCache.delete(x, y, z, world);
-            } else {
-                return Optional.empty();
-            }
-        }
+        if (cached != null)
+            return cached.hasIdentity() ? Optional.of(cached.get()) : Optional.empty();
 
         try {
-            final var result = this.shopDao.queryBuilder()
-                    .where()
-                    .eq(Shop.Names.STATE, Shop.State.ACTIVE)
-                    .and()
-                    .eq(Shop.Names.INVENTORY_X, x)
-                    .and()
-                    .eq(Shop.Names.INVENTORY_Y, y)
-                    .and()
-                    .eq(Shop.Names.INVENTORY_Z, z)
-                    .and()
-                    .eq(Shop.Names.INVENTORY_WORLD, world)
-                    .queryForFirst();
-
-            this.shopCache.store(x, y, z, world, result);
+            final var result = this.queries.inventory(x, y, z, world);
+
+            if (result != null)
+                this.shopCache.store(result);
+            else
+                this.shopCache.storeMissingInventory(x, y, z, world);
 
             return Optional.ofNullable(result);
         } catch (final SQLException e) {
@@ -283,8 +743,18 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
         if (id == null)
             return Optional.empty();
 
+        final var cached = this.shopCache.byId((int)id);
+
+        if (cached != null)
+            return Optional.of(cached);
+
         try {
-            return Optional.ofNullable(this.shopDao.queryForId((int)id));
+            final var result = this.shopDao.queryForId((int)id);
+
+            if (result != null && result.state() == Shop.State.ACTIVE)
+                this.shopCache.store(result);
+
+            return Optional.ofNullable(result);
         } catch (SQLException e) {
             throw new UnrecoverableException("Error while retrieving shop by id");
         }
@@ -311,32 +781,53 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
     @Override
     public Collection<Shop> shopsByItem(final String item) throws SlabbyException {
         try {
-            final var result = this.shopDao.queryBuilder()
-                    .where()
-                    .eq(Shop.Names.STATE, Shop.State.ACTIVE)
-                    .and()
-                    .eq(Shop.Names.ITEM, item)
-                    .query();
+            final var itemId = this.items.find(item);
+
+            if (itemId == null)
+                return List.of();
+
+            final var result = this.queries.byItem(itemId);
             return (Collection<Shop>) (Collection<? extends Shop>) result;
         } catch (final SQLException e) {
             throw new UnrecoverableException("Error while retrieving shops by item", e);
         }
     }
 
+    @Override
+    public Optional<Shop> locate(final String item, final Shop.Side side, final boolean ascending, final int minX, final int minZ, final int maxX, final int maxZ, final String world) throws SlabbyException {
+        final Integer itemId;
+
+        try {
+            itemId = this.items.find(item);
+        } catch (final SQLException e) {
+            throw new UnrecoverableException("Error while looking up item", e);
+        }
+
+        if (itemId == null)
+            return Optional.empty();
+
+        final var area = new MarketIndex.Area(minX, minZ, maxX, maxZ, world);
+
+        //NOTE: Offers outside the area are skipped in memory, a shop is only loaded once its offer is in the area.
+        var offer = this.marketIndex.next(itemId, side, ascending, area, null);
+
+        while (offer != null) {
+            final var shop = shopById(offer.id());
+
+            if (shop.isPresent())
+                return shop;
+
+            offer = this.marketIndex.next(itemId, side, ascending, area, offer);
+        }
+
+        return Optional.empty();
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public Collection<Shop> shopsInArea(final int minX, final int minZ, final int maxX, final int maxZ, final String world) {
         try {
-            final var result = this.shopDao.queryBuilder()
-                    .where()
-                    .eq(Shop.Names.STATE, Shop.State.ACTIVE)
-                    .and()
-                    .eq(Shop.Names.WORLD, world)
-                    .and()
-                    .between(Shop.Names.X, minX, maxX)
-                    .and()
-                    .between(Shop.Names.Z, minZ, maxZ)
-                    .query();
+            final var result = this.queries.inArea(minX, minZ, maxX, maxZ, world);
 
             return (Collection<Shop>) (Collection<? extends Shop>) result;
         } catch (final SQLException e) {
@@ -344,30 +835,37 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
         }
     }
 
+    @Override
+    public boolean hasShopsInChunk(final int chunkX, final int chunkZ, final String world) {
+        return this.chunkIndex.contains(chunkX, chunkZ, world);
+    }
+
     @Override
     public boolean isShopOrInventory(final int x, final int y, final int z, final String world) throws SlabbyException {
-        final var cached = this.shopCache.get(x, y, z, world);
+        if (!this.chunkIndex.containsBlock(x, z, world))
+            return false;
 
-        if (cached != null) {
-            if (cached.hasIdentity()) {
-                final var shop = cached.get();
+        if (this.residentIndex != null)
+            return this.residentIndex.location(x, y, z, world) != null || this.residentIndex.inventory(x, y, z, world) != null;
 
-                return shop.isInventoryAt(x, y, z, world) || shop.isAt(x, y, z, world);
-            } else {
-                return false;
-            }
-        }
+        final var location = this.shopCache.location(x, y, z, world);
+        final var inventory = this.shopCache.inventory(x, y, z, world);
 
-        try {
-            final var where = this.shopDao.queryBuilder().where();
+        if (location != null && location.hasIdentity() || inventory != null && inventory.hasIdentity())
+            return true;
 
-            final var result = where
-                    .and(where.eq(Shop.Names.STATE, Shop.State.ACTIVE), where.or(
-                            where.and(where.eq(Shop.Names.INVENTORY_X, x), where.eq(Shop.Names.INVENTORY_Y, y), where.eq(Shop.Names.INVENTORY_Z, z), where.eq(Shop.Names.INVENTORY_WORLD, world)),
-                            where.and(where.eq(Shop.Names.X, x), where.eq(Shop.Names.Y, y), where.eq(Shop.Names.Z, z), where.eq(Shop.Names.WORLD, world))))
-                    .queryForFirst();
+        if (location != null && inventory != null)
+            return false;
 
-            this.shopCache.store(x, y, z, world, result);
+        try {
+            final var result = this.queries.shopOrInventory(x, y, z, world);
+
+            if (result != null) {
+                this.shopCache.store(result);
+            } else {
+                this.shopCache.storeMissingLocation(x, y, z, world);
+                this.shopCache.storeMissingInventory(x, y, z, world);
+            }
 
             return result != null;
         } catch (final SQLException e) {
@@ -377,10 +875,23 @@ public final class SQLiteShopRepository implements ShopRepository, Closeable {
 
     @Override
     public <T> T transaction(final Callable<T> transaction) throws SlabbyException {
+        final var outermost = this.ownersChanged.get() == null;
+
+        if (outermost)
+            this.ownersChanged.set(new HashSet<>());
+
         try {
-            return TransactionManager.callInTransaction(this.connectionSource, transaction);
+            return TransactionManager.callInTransaction(this.connectionSource, () -> this.logAppender.transactional(this.connectionSource, transaction));
         } catch (final SQLException e) {
             throw new UnrecoverableException("Error while running transaction", e);
+        } finally {
+            if (outermost) {
+                final var changed = this.ownersChanged.get();
+
+                this.ownersChanged.remove();
+
+                changed.forEach(this::invalidateShares);
+            }
         }
     }
 
@@ -0,0 +1,277 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.valesmp.slabby.SlabbyAPI;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers new shop logs in a bounded queue and writes them with multi-row inserts. The buffer is drained by the
+ * background writer, or after a log is appended outside a transaction. Appending never writes, when the buffer is full
+ * the log goes to an overflow list until the next drain. Logs appended inside a transaction are kept with that
+ * transaction, and only written when it commits.
+ */
+public final class ShopLogAppender {
+
+    //NOTE: Stays below the bound parameter limit of older SQLite versions.
+    private static final int MAX_PARAMETERS = 999;
+
+    private final SlabbyAPI api;
+
+    private final String tableName;
+
+    private final FieldType[] fieldTypes;
+
+    private final String insertPrefix;
+
+    private final String rowPlaceholders;
+
+    private final int rowsPerStatement;
+
+    private final ArrayBlockingQueue<SQLiteShopLog> buffer;
+
+    //NOTE: Logs of a failed write, they are written before the buffer so their order is kept. Never bounded, a failed
+    //      write must not lose any log.
+    private final Deque<SQLiteShopLog> retry = new ArrayDeque<>();
+
+    //NOTE: Logs that did not fit in the buffer. Never bounded, the appending thread must not wait for the database. While
+    //      it is not empty every log goes here, so the order is kept.
+    private final Deque<SQLiteShopLog> overflow = new ArrayDeque<>();
+
+    private final ThreadLocal<List<SQLiteShopLog>> transactional = new ThreadLocal<>();
+
+    private final AtomicInteger highWatermark = new AtomicInteger();
+
+    private final AtomicLong overflows = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    public ShopLogAppender(final SlabbyAPI api, final Dao<SQLiteShopLog, Integer> dao, final int capacity) {
+        this.api = api;
+        this.tableName = dao.getTableName();
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+
+        this.fieldTypes = Arrays.stream(dao.getTableInfo().getFieldTypes())
+                .filter(it -> !it.isGeneratedId() && !it.isForeignCollection())
+                .toArray(FieldType[]::new);
+
+        final var databaseType = dao.getConnectionSource().getDatabaseType();
+        final var prefix = new StringBuilder("INSERT INTO ");
+
+        databaseType.appendEscapedEntityName(prefix, this.tableName);
+        prefix.append(" (");
+
+        for (var i = 0; i < this.fieldTypes.length; i++) {
+            if (i > 0)
+                prefix.append(',');
+
+            databaseType.appendEscapedEntityName(prefix, this.fieldTypes[i].getColumnName());
+        }
+
+        prefix.append(") VALUES ");
+
+        this.insertPrefix = prefix.toString();
+        this.rowPlaceholders = "(" + String.join(",", Collections.nCopies(this.fieldTypes.length, "?")) + ")";
+        this.rowsPerStatement = Math.max(1, MAX_PARAMETERS / this.fieldTypes.length);
+    }
+
+    /**
+     * Queues the log, without ever touching the database. Inside {@link #transactional(ConnectionSource, Callable)} the
+     * log is kept with the transaction instead.
+     */
+    public void append(final SQLiteShopLog log) {
+        if (log.createdOn() == null)
+            log.createdOn(this.api.legacyNow());
+
+        final var pending = this.transactional.get();
+
+        if (pending != null) {
+            pending.add(log);
+            return;
+        }
+
+        synchronized (this.overflow) {
+            if (this.overflow.isEmpty() && this.buffer.offer(log)) {
+                this.highWatermark.accumulateAndGet(this.buffer.size(), Math::max);
+                return;
+            }
+
+            this.overflow.addLast(log);
+        }
+
+        this.overflows.incrementAndGet();
+    }
+
+    /**
+     * Runs the body, which has to run inside a transaction. The logs it appends are written on the transaction's
+     * connection once the body returned, and are dropped with the transaction when the body throws.
+     */
+    public <T> T transactional(final ConnectionSource connectionSource, final Callable<T> body) throws Exception {
+        //NOTE: A nested transaction is part of the outer one, so are its logs.
+        if (this.transactional.get() != null)
+            return body.call();
+
+        final var logs = new ArrayList<SQLiteShopLog>();
+        final T result;
+
+        this.transactional.set(logs);
+
+        try {
+            result = body.call();
+        } finally {
+            this.transactional.remove();
+        }
+
+        write(connectionSource, logs);
+
+        return result;
+    }
+
+    public boolean inTransaction() {
+        return this.transactional.get() != null;
+    }
+
+    /**
+     * Writes every buffered log in a transaction of its own. When that fails, the logs are kept for the next drain.
+     */
+    public int drain(final ConnectionSource connectionSource) throws SQLException {
+        if (size() == 0)
+            return 0;
+
+        final var logs = new ArrayList<SQLiteShopLog>();
+
+        try {
+            TransactionManager.callInTransaction(connectionSource, () -> {
+                //NOTE: Taken once the writer is held, so drains on different threads never write out of order.
+                logs.addAll(take());
+                write(connectionSource, logs);
+                return null;
+            });
+        } catch (final SQLException e) {
+            restore(logs);
+            throw e;
+        }
+
+        return logs.size();
+    }
+
+    /**
+     * Removes every buffered log, oldest first. Logs that were taken but could not be written have to be given back
+     * with {@link #restore(List)}.
+     */
+    public List<SQLiteShopLog> take() {
+        final var logs = new ArrayList<SQLiteShopLog>();
+
+        synchronized (this.retry) {
+            logs.addAll(this.retry);
+            this.retry.clear();
+        }
+
+        synchronized (this.overflow) {
+            this.buffer.drainTo(logs);
+            logs.addAll(this.overflow);
+            this.overflow.clear();
+        }
+
+        return logs;
+    }
+
+    /**
+     * Gives back logs that could not be written, ahead of everything that was buffered since.
+     */
+    public void restore(final List<SQLiteShopLog> logs) {
+        synchronized (this.retry) {
+            for (var i = logs.size() - 1; i >= 0; i--)
+                this.retry.addFirst(logs.get(i));
+        }
+    }
+
+    /**
+     * Writes the logs on the connection of the current transaction.
+     */
+    public void write(final ConnectionSource connectionSource, final List<SQLiteShopLog> logs) throws SQLException {
+        if (logs.isEmpty())
+            return;
+
+        final var connection = connectionSource.getReadWriteConnection(this.tableName);
+
+        try {
+            for (var i = 0; i < logs.size(); i += this.rowsPerStatement)
+                insert(connection, logs.subList(i, Math.min(logs.size(), i + this.rowsPerStatement)));
+        } finally {
+            connectionSource.releaseConnection(connection);
+        }
+
+        this.written.addAndGet(logs.size());
+    }
+
+    public int size() {
+        synchronized (this.retry) {
+            synchronized (this.overflow) {
+                return this.buffer.size() + this.retry.size() + this.overflow.size();
+            }
+        }
+    }
+
+    public int capacity() {
+        return this.buffer.size() + this.buffer.remainingCapacity();
+    }
+
+    /**
+     * Highest amount of logs that were buffered at once.
+     */
+    public int highWatermark() {
+        return this.highWatermark.get();
+    }
+
+    /**
+     * Amount of logs that found the buffer full and went to the overflow list.
+     */
+    public long overflows() {
+        return this.overflows.get();
+    }
+
+    public long written() {
+        return this.written.get();
+    }
+
+    private void insert(final DatabaseConnection connection, final List<SQLiteShopLog> batch) throws SQLException {
+        final var sql = new StringBuilder(this.insertPrefix.length() + batch.size() * (this.rowPlaceholders.length() + 1));
+        final var args = new Object[batch.size() * this.fieldTypes.length];
+        final var argFieldTypes = new FieldType[args.length];
+
+        sql.append(this.insertPrefix);
+
+        var arg = 0;
+
+        for (var row = 0; row < batch.size(); row++) {
+            if (row > 0)
+                sql.append(',');
+
+            sql.append(this.rowPlaceholders);
+
+            for (final var fieldType : this.fieldTypes) {
+                args[arg] = fieldType.extractJavaFieldToSqlArgValue(batch.get(row));
+                argFieldTypes[arg] = fieldType;
+                arg++;
+            }
+        }
+
+        connection.update(sql.toString(), args, argFieldTypes);
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import com.valesmp.slabby.SlabbyAPI;
+import com.valesmp.slabby.shop.log.LogCodec;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the JSON data of logs written before the binary payload existed into the payload column, on a background
+ * thread, so a large log table does not hold up startup. Until a log is migrated its JSON data is decoded instead.
+ * Unmigrated logs are tracked by a partial index, which is dropped once every log is migrated. Every payload is decoded
+ * and compared with the JSON data before that data is cleared.
+ */
+final class ShopLogMigration implements Closeable {
+
+    private static final String LEGACY_INDEX = "shop_logs_legacy_data_idx";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String SELECT = "SELECT " + ShopLog.Names.ID + ", " + ShopLog.Names.ACTION + ", " + ShopLog.Names.DATA + " FROM shop_logs INDEXED BY " + LEGACY_INDEX
+            + " WHERE " + ShopLog.Names.DATA + " IS NOT NULL AND " + ShopLog.Names.ID + " > ? ORDER BY " + ShopLog.Names.ID + " LIMIT " + BATCH_SIZE;
+
+    private static final String UPDATE = "UPDATE shop_logs SET " + ShopLog.Names.PAYLOAD + " = ?, " + ShopLog.Names.DATA + " = NULL WHERE " + ShopLog.Names.ID + " = ?";
+
+    private final SlabbyAPI api;
+
+    private final ConnectionSource connectionSource;
+
+    private Thread thread;
+
+    ShopLogMigration(final SlabbyAPI api, final ConnectionSource connectionSource) {
+        this.api = api;
+        this.connectionSource = connectionSource;
+    }
+
+    /**
+     * Adds the payload column to log tables created before it existed. Has to run before any log is written.
+     */
+    void prepare(final Dao<SQLiteShopLog, Integer> dao) throws SQLException {
+        final var columns = new ArrayList<String>();
+
+        try (final var results = dao.queryRaw("PRAGMA table_info(shop_logs)")) {
+            for (final var row : results)
+                columns.add(row[1]);
+        } catch (final Exception e) {
+            throw new SQLException("Error while reading the shop logs table", e);
+        }
+
+        if (columns.contains(ShopLog.Names.PAYLOAD))
+            return;
+
+        dao.executeRawNoArgs("ALTER TABLE shop_logs ADD COLUMN " + ShopLog.Names.PAYLOAD + " BLOB");
+        dao.executeRawNoArgs("CREATE INDEX IF NOT EXISTS " + LEGACY_INDEX + " ON shop_logs (" + ShopLog.Names.ID + ") WHERE " + ShopLog.Names.DATA + " IS NOT NULL");
+    }
+
+    /**
+     * Starts migrating in the background, if an earlier migration did not finish yet.
+     */
+    void start(final Dao<SQLiteShopLog, Integer> dao) throws SQLException {
+        if (dao.queryRawValue("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name = '" + LEGACY_INDEX + "'") == 0)
+            return;
+
+        this.thread = new Thread(() -> {
+            try {
+                migrate(dao);
+            } catch (final Exception e) {
+                this.api.exceptionService().logToConsole("Error while migrating shop logs, the remaining logs are migrated on the next start", e);
+            }
+        }, "Slabby Log Migration");
+
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void close() {
+        if (this.thread == null)
+            return;
+
+        //NOTE: Stops after the batch in progress, the next start picks up where it left off.
+        this.thread.interrupt();
+
+        try {
+            this.thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void migrate(final Dao<SQLiteShopLog, Integer> dao) throws SQLException {
+        var after = 0;
+        var total = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            final var batch = read(after);
+
+            if (batch.last() == after) {
+                dao.executeRawNoArgs("DROP INDEX IF EXISTS " + LEGACY_INDEX);
+                this.api.logger().info("Migrated %d shop logs to the binary payload".formatted(total));
+                return;
+            }
+
+            write(batch.rows());
+
+            after = batch.last();
+            total += batch.rows().size();
+        }
+    }
+
+    private Batch read(final int after) throws SQLException {
+        final var connection = this.connectionSource.getReadOnlyConnection("shop_logs");
+        final var rows = new ArrayList<Row>(BATCH_SIZE);
+
+        var last = after;
+
+        try (final var statement = ((JdbcDatabaseConnection) connection).getInternalConnection().prepareStatement(SELECT)) {
+            statement.setInt(1, after);
+
+            try (final var result = statement.executeQuery()) {
+                while (result.next()) {
+                    final var id = result.getInt(1);
+
+                    last = id;
+
+                    try {
+                        rows.add(new Row(id, encode(ShopLog.Action.valueOf(result.getString(2)), result.getString(3))));
+                    } catch (final RuntimeException e) {
+                        //NOTE: The log keeps its JSON data, which is still decoded when it is shown.
+                        this.api.logger().warning("Skipping shop log %d, its data cannot be migrated: %s".formatted(id, e.getMessage()));
+                    }
+                }
+            }
+        } finally {
+            this.connectionSource.releaseConnection(connection);
+        }
+
+        return new Batch(last, rows);
+    }
+
+    private void write(final List<Row> batch) throws SQLException {
+        TransactionManager.callInTransaction(this.connectionSource, () -> {
+            final var connection = this.connectionSource.getReadWriteConnection("shop_logs");
+
+            try (final var statement = ((JdbcDatabaseConnection) connection).getInternalConnection().prepareStatement(UPDATE)) {
+                for (final var row : batch) {
+                    statement.setBytes(1, row.payload());
+                    statement.setInt(2, row.id());
+                    statement.addBatch();
+                }
+
+                statement.executeBatch();
+            } finally {
+                this.connectionSource.releaseConnection(connection);
+            }
+
+            return null;
+        });
+    }
+
+    private byte[] encode(final ShopLog.Action action, final String data) {
+        //NOTE: Actions without data never had anything meaningful stored, the JSON is dropped.
+        if (action.dataClass() == Void.class)
+            return null;
+
+        final var source = this.api.fromJson(data, action.dataClass());
+        final var payload = LogCodec.encode(source);
+
+        //NOTE: The JSON data is cleared together with writing the payload, so a payload that does not decode back to the
+        //      same data would lose the log. Such a log keeps its JSON data instead.
+        if (!Objects.equals(LogCodec.decode(action.dataClass(), payload), source))
+            throw new IllegalStateException("its payload does not decode to the same data");
+
+        return payload;
+    }
+
+    private record Row(int id, byte[] payload) {}
+
+    private record Batch(int last, List<Row> rows) {}
+
+}
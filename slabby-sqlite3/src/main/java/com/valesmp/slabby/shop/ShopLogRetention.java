@@ -0,0 +1,276 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.field.DataPersister;
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.valesmp.slabby.SlabbyAPI;
+import com.valesmp.slabby.config.SlabbyConfig;
+import com.valesmp.slabby.shop.log.LogCodec;
+import com.valesmp.slabby.shop.log.Transaction;
+import com.valesmp.slabby.shop.log.ValueChanged;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Replaces trade, deposit and withdraw logs older than the retention period with daily totals per shop, on a single
+ * background thread. Before the logs are removed they can be written to gzipped archive segments, one JSON log per line.
+ * Logs are handled in batches, each batch is rolled up and removed in its own transaction.
+ */
+final class ShopLogRetention implements Closeable {
+
+    private static final String ROLLED_UP = "('BUY', 'SELL', 'DEPOSIT', 'WITHDRAW')";
+
+    private static final String SELECT = "SELECT id, shop_id, uniqueId, action, data, payload, createdOn FROM shop_logs"
+            + " WHERE id > ? AND createdOn < ? AND action IN " + ROLLED_UP + " ORDER BY id LIMIT ?";
+
+    //NOTE: Old logs are never modified, so the range removes exactly the logs of the batch.
+    private static final String DELETE = "DELETE FROM shop_logs"
+            + " WHERE id >= ? AND id <= ? AND createdOn < ? AND action IN " + ROLLED_UP;
+
+    //NOTE: ORMLite stores dates as text in SQLite, so the cutoff is bound and createdOn is read in that same format.
+    //      A timestamp would be bound as a number, which never compares as older than the text in the column.
+    private static final DataPersister DATE_STRING = DataType.DATE_STRING.getDataPersister();
+
+    private static final String UPSERT = "INSERT INTO shop_log_rollups (shop_id, day, action, count, quantity, amount) VALUES (?, ?, ?, ?, ?, ?)"
+            + " ON CONFLICT (shop_id, day, action) DO UPDATE SET"
+            + " count = count + excluded.count, quantity = quantity + excluded.quantity, amount = amount + excluded.amount";
+
+    private final SlabbyAPI api;
+
+    private final ConnectionSource connectionSource;
+
+    private final int keepDays;
+
+    private final int batchSize;
+
+    //NOTE: Null when archiving is disabled.
+    private final Path archiveDirectory;
+
+    private final ScheduledExecutorService executor;
+
+    ShopLogRetention(final SlabbyAPI api, final ConnectionSource connectionSource, final SlabbyConfig.Database.Retention config) {
+        this.api = api;
+        this.connectionSource = connectionSource;
+        this.keepDays = Math.max(1, config.keepDays());
+        this.batchSize = Math.max(1, config.batchSize());
+        this.archiveDirectory = config.archive() ? api.directory().toPath().resolve(config.archiveDirectory()) : null;
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "Slabby Retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        //NOTE: The first run waits a minute, so it does not compete with the server starting up.
+        this.executor.scheduleWithFixedDelay(this::runQuietly, 1, Math.max(1, config.interval()), TimeUnit.MINUTES);
+    }
+
+    void run() throws SQLException, IOException {
+        final var cutoff = (String) DATE_STRING.javaToSqlArg(null, new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(this.keepDays)));
+
+        if (this.archiveDirectory != null)
+            Files.createDirectories(this.archiveDirectory);
+
+        var after = 0;
+        var total = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            final var batch = read(after, cutoff);
+
+            if (batch.isEmpty())
+                break;
+
+            rollUp(batch, cutoff);
+
+            after = batch.get(batch.size() - 1).id();
+            total += batch.size();
+        }
+
+        if (total > 0)
+            this.api.logger().info("Rolled up %d shop logs older than %d days".formatted(total, this.keepDays));
+    }
+
+    @Override
+    public void close() {
+        //NOTE: A run stops after the batch in progress, the remaining logs are picked up by the next run.
+        this.executor.shutdownNow();
+
+        try {
+            if (!this.executor.awaitTermination(30, TimeUnit.SECONDS))
+                this.api.logger().warning("Log retention did not finish in time");
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runQuietly() {
+        try {
+            run();
+        } catch (final Exception e) {
+            this.api.exceptionService().logToConsole("Error while rolling up shop logs", e);
+        }
+    }
+
+    private List<Row> read(final int after, final String cutoff) throws SQLException {
+        final var connection = this.connectionSource.getReadOnlyConnection("shop_logs");
+
+        try (final var statement = jdbc(connection).prepareStatement(SELECT)) {
+            statement.setInt(1, after);
+            statement.setString(2, cutoff);
+            statement.setInt(3, this.batchSize);
+
+            final var rows = new ArrayList<Row>(this.batchSize);
+
+            try (final var result = statement.executeQuery()) {
+                while (result.next()) {
+                    final var action = ShopLog.Action.valueOf(result.getString(4));
+
+                    final var createdOn = (Date) DATE_STRING.sqlArgToJava(null, result.getString(7), 7);
+
+                    rows.add(new Row(result.getInt(1), result.getInt(2), result.getString(3), action, decode(action, result.getString(5), result.getBytes(6)), createdOn.getTime()));
+                }
+            }
+
+            return rows;
+        } finally {
+            this.connectionSource.releaseConnection(connection);
+        }
+    }
+
+    private void rollUp(final List<Row> batch, final String cutoff) throws SQLException, IOException {
+        final var totals = new LinkedHashMap<Key, Total>();
+
+        for (final var row : batch) {
+            final var day = Instant.ofEpochMilli(row.createdOn()).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+            final var total = totals.computeIfAbsent(new Key(row.shop(), day, row.action()), key -> new Total());
+
+            total.add(row);
+        }
+
+        final var first = batch.get(0).id();
+        final var last = batch.get(batch.size() - 1).id();
+        final var segment = this.archiveDirectory != null ? archive(batch, first, last) : null;
+
+        try {
+            TransactionManager.callInTransaction(this.connectionSource, () -> {
+                final var connection = this.connectionSource.getReadWriteConnection("shop_logs");
+
+                try {
+                    final var jdbc = jdbc(connection);
+
+                    try (final var upsert = jdbc.prepareStatement(UPSERT)) {
+                        for (final var entry : totals.entrySet()) {
+                            upsert.setInt(1, entry.getKey().shop());
+                            upsert.setLong(2, entry.getKey().day());
+                            upsert.setString(3, entry.getKey().action().name());
+                            upsert.setInt(4, entry.getValue().count);
+                            upsert.setLong(5, entry.getValue().quantity);
+                            upsert.setDouble(6, entry.getValue().amount);
+                            upsert.addBatch();
+                        }
+
+                        upsert.executeBatch();
+                    }
+
+                    try (final var delete = jdbc.prepareStatement(DELETE)) {
+                        delete.setInt(1, first);
+                        delete.setInt(2, last);
+                        delete.setString(3, cutoff);
+                        delete.executeUpdate();
+                    }
+                } finally {
+                    this.connectionSource.releaseConnection(connection);
+                }
+
+                return null;
+            });
+        } catch (final SQLException e) {
+            //NOTE: The logs are still in the database, so the segment would hold them twice after the next run.
+            if (segment != null)
+                Files.deleteIfExists(segment);
+
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the batch to a new archive segment. The segment only gets its final name once it is complete, so a segment
+     * with that name never holds a partial batch.
+     */
+    private Path archive(final List<Row> batch, final int first, final int last) throws IOException {
+        final var name = "shop_logs-%d-%d.ndjson.gz".formatted(first, last);
+        final var temporary = this.archiveDirectory.resolve(name + ".tmp");
+        final var segment = this.archiveDirectory.resolve(name);
+
+        try (final var writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temporary)), StandardCharsets.UTF_8))) {
+            for (final var row : batch) {
+                writer.write(this.api.toJson(row));
+                writer.newLine();
+            }
+        }
+
+        return Files.move(temporary, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Object decode(final ShopLog.Action action, final String data, final byte[] payload) {
+        if (payload != null)
+            return LogCodec.decode(action.dataClass(), payload);
+
+        //NOTE: Logs that were not migrated to the binary payload yet still have their JSON data.
+        return data != null ? this.api.fromJson(data, action.dataClass()) : null;
+    }
+
+    private static Connection jdbc(final DatabaseConnection connection) {
+        return ((JdbcDatabaseConnection) connection).getInternalConnection();
+    }
+
+    private record Row(int id, int shop, String uniqueId, ShopLog.Action action, Object data, long createdOn) {}
+
+    private record Key(int shop, long day, ShopLog.Action action) {}
+
+    private static final class Total {
+
+        private int count;
+
+        private long quantity;
+
+        private double amount;
+
+        private void add(final Row row) {
+            this.count++;
+
+            switch (row.data()) {
+                case Transaction data -> {
+                    this.quantity += data.quantity();
+                    this.amount += data.amount();
+                }
+                case ValueChanged.Int data -> this.quantity += Math.abs(data.to() - data.from());
+                case null, default -> {}
+            }
+        }
+
+    }
+
+}
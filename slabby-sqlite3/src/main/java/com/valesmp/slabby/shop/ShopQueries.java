@@ -0,0 +1,142 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.PreparedQuery;
+import com.j256.ormlite.stmt.SelectArg;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The hot shop lookups, compiled once. Every query keeps its own arguments, which are rebound on each call, so each
+ * query is guarded by its own lock.
+ */
+final class ShopQueries {
+
+    private final Dao<SQLiteShop, Integer> dao;
+
+    private final LocationQuery location;
+
+    private final LocationQuery inventory;
+
+    private final PreparedQuery<SQLiteShop> shopOrInventory;
+
+    private final SelectArg[] shopOrInventoryArgs = selectArgs(8);
+
+    private final PreparedQuery<SQLiteShop> byItem;
+
+    private final SelectArg itemId = new SelectArg();
+
+    private final PreparedQuery<SQLiteShop> inArea;
+
+    private final SelectArg[] areaArgs = selectArgs(5);
+
+    ShopQueries(final Dao<SQLiteShop, Integer> dao) throws SQLException {
+        this.dao = dao;
+
+        this.location = new LocationQuery(dao, Shop.Names.X, Shop.Names.Y, Shop.Names.Z, Shop.Names.WORLD);
+        this.inventory = new LocationQuery(dao, Shop.Names.INVENTORY_X, Shop.Names.INVENTORY_Y, Shop.Names.INVENTORY_Z, Shop.Names.INVENTORY_WORLD);
+
+        final var args = this.shopOrInventoryArgs;
+        final var where = dao.queryBuilder().where();
+
+        where.and(where.eq(Shop.Names.STATE, Shop.State.ACTIVE), where.or(
+                where.and(where.eq(Shop.Names.INVENTORY_X, args[0]), where.eq(Shop.Names.INVENTORY_Y, args[1]), where.eq(Shop.Names.INVENTORY_Z, args[2]), where.eq(Shop.Names.INVENTORY_WORLD, args[3])),
+                where.and(where.eq(Shop.Names.X, args[4]), where.eq(Shop.Names.Y, args[5]), where.eq(Shop.Names.Z, args[6]), where.eq(Shop.Names.WORLD, args[7]))));
+
+        this.shopOrInventory = where.prepare();
+
+        this.byItem = dao.queryBuilder()
+                .where()
+                .eq(Shop.Names.STATE, Shop.State.ACTIVE)
+                .and()
+                .eq(Shop.Names.ITEM_ID, this.itemId)
+                .prepare();
+
+        this.inArea = dao.queryBuilder()
+                .where()
+                .eq(Shop.Names.STATE, Shop.State.ACTIVE)
+                .and()
+                .eq(Shop.Names.WORLD, this.areaArgs[0])
+                .and()
+                .between(Shop.Names.X, this.areaArgs[1], this.areaArgs[2])
+                .and()
+                .between(Shop.Names.Z, this.areaArgs[3], this.areaArgs[4])
+                .prepare();
+    }
+
+    SQLiteShop location(final int x, final int y, final int z, final String world) throws SQLException {
+        return this.location.first(x, y, z, world);
+    }
+
+    SQLiteShop inventory(final int x, final int y, final int z, final String world) throws SQLException {
+        return this.inventory.first(x, y, z, world);
+    }
+
+    SQLiteShop shopOrInventory(final int x, final int y, final int z, final String world) throws SQLException {
+        synchronized (this.shopOrInventory) {
+            bind(this.shopOrInventoryArgs, x, y, z, world, x, y, z, world);
+            return this.dao.queryForFirst(this.shopOrInventory);
+        }
+    }
+
+    List<SQLiteShop> byItem(final int itemId) throws SQLException {
+        synchronized (this.byItem) {
+            this.itemId.setValue(itemId);
+            return this.dao.query(this.byItem);
+        }
+    }
+
+    List<SQLiteShop> inArea(final int minX, final int minZ, final int maxX, final int maxZ, final String world) throws SQLException {
+        synchronized (this.inArea) {
+            bind(this.areaArgs, world, minX, maxX, minZ, maxZ);
+            return this.dao.query(this.inArea);
+        }
+    }
+
+    private static SelectArg[] selectArgs(final int count) {
+        final var args = new SelectArg[count];
+
+        for (var i = 0; i < count; i++)
+            args[i] = new SelectArg();
+
+        return args;
+    }
+
+    private static void bind(final SelectArg[] args, final Object... values) {
+        for (var i = 0; i < args.length; i++)
+            args[i].setValue(values[i]);
+    }
+
+    private static final class LocationQuery {
+
+        private final Dao<SQLiteShop, Integer> dao;
+
+        private final PreparedQuery<SQLiteShop> query;
+
+        private final SelectArg[] args = selectArgs(4);
+
+        private LocationQuery(final Dao<SQLiteShop, Integer> dao, final String x, final String y, final String z, final String world) throws SQLException {
+            this.dao = dao;
+            this.query = dao.queryBuilder()
+                    .where()
+                    .eq(Shop.Names.STATE, Shop.State.ACTIVE)
+                    .and()
+                    .eq(x, this.args[0])
+                    .and()
+                    .eq(y, this.args[1])
+                    .and()
+                    .eq(z, this.args[2])
+                    .and()
+                    .eq(world, this.args[3])
+                    .prepare();
+        }
+
+        private synchronized SQLiteShop first(final int x, final int y, final int z, final String world) throws SQLException {
+            bind(this.args, x, y, z, world);
+            return this.dao.queryForFirst(this.query);
+        }
+
+    }
+
+}
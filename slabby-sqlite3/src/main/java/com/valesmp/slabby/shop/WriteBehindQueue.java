@@ -0,0 +1,196 @@
+package com.valesmp.slabby.shop;
+
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import com.valesmp.slabby.SlabbyAPI;
+import com.valesmp.slabby.dao.ShopDao;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects dirty shops, and writes them together with the buffered shop logs in grouped transactions on a single
+ * background thread.
+ * The in-memory shops stay authoritative: a shop is held strongly until its latest snapshot has been written.
+ */
+final class WriteBehindQueue implements Closeable {
+
+    private final SlabbyAPI api;
+
+    //NOTE: Transactions are per thread, so the writer never shares one with the main thread. Its DAOs are uncached, so it
+    //      never copies an older snapshot back into a cached shop.
+    private final ConnectionSource connectionSource;
+
+    private final ShopDao shopDao;
+
+    private final ShopLogAppender logAppender;
+
+    private final OwnerLedger ledger;
+
+    private final int batchSize;
+
+    private final ScheduledExecutorService executor;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Object writeLock = new Object();
+
+    private final Map<Integer, Pending> shops = new LinkedHashMap<>();
+
+    private final Map<UUID, Double> ledgerAmounts = new HashMap<>();
+
+    WriteBehindQueue(final SlabbyAPI api, final ShopLogAppender logAppender, final OwnerLedger ledger, final ConnectionSource connectionSource, final int interval, final int batchSize) throws SQLException {
+        this.api = api;
+        this.logAppender = logAppender;
+        this.ledger = ledger;
+        this.batchSize = Math.max(1, batchSize);
+
+        this.connectionSource = connectionSource;
+        this.shopDao = new ShopDao(this.connectionSource, SQLiteShop.class);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "Slabby Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final var period = Math.max(1, interval);
+
+        this.executor.scheduleWithFixedDelay(this::flushQuietly, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    void update(final SQLiteShop shop) {
+        synchronized (this) {
+            this.shops.put(shop.id(), new Pending(shop, shop.snapshot()));
+        }
+
+        requestFlushIfFull();
+    }
+
+    /**
+     * Queues ledger amounts, they are written in the same transaction as the shops they belong to.
+     */
+    synchronized void ledger(final Map<UUID, Double> amounts) {
+        amounts.forEach((uniqueId, amount) -> this.ledgerAmounts.merge(uniqueId, amount, Double::sum));
+    }
+
+    synchronized boolean isPending(final SQLiteShop shop) {
+        return this.shops.containsKey(shop.<Integer>id());
+    }
+
+    /**
+     * Drops the pending snapshot of a shop that is about to be written directly. A write in progress skips the snapshot
+     * when it gets to it, or has already written it in a transaction that the direct write has to wait for.
+     */
+    synchronized void discard(final SQLiteShop shop) {
+        this.shops.remove(shop.<Integer>id());
+    }
+
+    void flush() throws SQLException {
+        synchronized (this.writeLock) {
+            while (true) {
+                final List<Pending> shopBatch;
+                final Map<UUID, Double> ledgerBatch;
+                final List<SQLiteShopLog> logBatch = new ArrayList<>();
+
+                synchronized (this) {
+                    if (this.shops.isEmpty() && this.logAppender.size() == 0 && this.ledgerAmounts.isEmpty())
+                        return;
+
+                    //NOTE: Shops stay pending until written, so a refresh in the meantime does not load stale rows.
+                    shopBatch = new ArrayList<>(this.shops.values());
+
+                    ledgerBatch = new HashMap<>(this.ledgerAmounts);
+                    this.ledgerAmounts.clear();
+                }
+
+                try {
+                    TransactionManager.callInTransaction(this.connectionSource, () -> {
+                        for (final var pending : shopBatch) {
+                            //NOTE: Checked inside the transaction, it holds the writer, so a direct write that discarded
+                            //      the snapshot after this check can only land after this transaction.
+                            if (isCurrent(pending))
+                                this.shopDao.update(pending.snapshot());
+                        }
+
+                        this.ledger.write(this.connectionSource, ledgerBatch);
+
+                        logBatch.addAll(this.logAppender.take());
+                        this.logAppender.write(this.connectionSource, logBatch);
+
+                        return null;
+                    });
+                } catch (final SQLException e) {
+                    //NOTE: The amounts are deltas, they are queued again so the next write includes them. The logs were
+                    //      rolled back with the transaction, so they are given back too.
+                    ledger(ledgerBatch);
+                    this.logAppender.restore(logBatch);
+                    throw e;
+                }
+
+                synchronized (this) {
+                    //NOTE: Only remove the snapshots we wrote, the shop may have changed again in the meantime.
+                    shopBatch.forEach(pending -> this.shops.remove(pending.shop().<Integer>id(), pending));
+                }
+            }
+        }
+    }
+
+    private synchronized boolean isCurrent(final Pending pending) {
+        return this.shops.get(pending.shop().<Integer>id()) == pending;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdown();
+
+        try {
+            if (!this.executor.awaitTermination(30, TimeUnit.SECONDS))
+                this.api.logger().warning("Background writer did not finish in time, writing remaining changes now");
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            flush();
+        } catch (final SQLException e) {
+            this.api.exceptionService().logToConsole("Error while writing remaining shop changes", e);
+        }
+    }
+
+    void requestFlushIfFull() {
+        final boolean full;
+
+        synchronized (this) {
+            full = this.shops.size() + this.logAppender.size() >= this.batchSize;
+        }
+
+        if (full && !this.executor.isShutdown() && this.flushRequested.compareAndSet(false, true)) {
+            this.executor.execute(() -> {
+                this.flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (final Exception e) {
+            this.api.exceptionService().logToConsole("Error while writing shop changes in the background", e);
+        }
+    }
+
+    private record Pending(SQLiteShop shop, SQLiteShop snapshot) {}
+
+}